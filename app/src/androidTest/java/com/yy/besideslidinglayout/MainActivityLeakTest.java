@@ -0,0 +1,91 @@
+package com.yy.besideslidinglayout;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.pm.ActivityInfo;
+import android.test.ActivityInstrumentationTestCase2;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 反复旋转屏幕，每次旋转前都让菜单处于滑动和后台加载之中，检查被销毁的MainActivity都能被回收
+ */
+public class MainActivityLeakTest extends ActivityInstrumentationTestCase2<MainActivity> {
+
+    private static final int ROTATIONS = 10;
+
+    /**
+     * 每次旋转等待新Activity创建的最长时间，单位毫秒
+     */
+    private static final long ROTATION_TIMEOUT = 5000;
+
+    private static final int GC_ATTEMPTS = 20;
+
+    public MainActivityLeakTest() {
+        super(MainActivity.class);
+    }
+
+    public void testRotationDoesNotLeakActivities() throws Exception {
+        Instrumentation instrumentation = getInstrumentation();
+        List<WeakReference<Activity>> destroyed = new ArrayList<WeakReference<Activity>>();
+        Activity activity = getActivity();
+        //测试用例自身保存着第一个Activity，不清除的话它永远无法回收，之后的Activity都只通过局部变量和弱引用持有
+        setActivity(null);
+        for (int i = 0; i < ROTATIONS; i++) {
+            startSlide(activity, i);
+            Instrumentation.ActivityMonitor monitor =
+                    instrumentation.addMonitor(MainActivity.class.getName(), null, false);
+            activity.setRequestedOrientation(i % 2 == 0
+                    ? ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE : ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
+            Activity next = instrumentation.waitForMonitorWithTimeout(monitor, ROTATION_TIMEOUT);
+            instrumentation.removeMonitor(monitor);
+            assertNotNull("activity was not recreated after rotation " + i, next);
+            instrumentation.waitForIdleSync();
+            destroyed.add(new WeakReference<Activity>(activity));
+            activity = next;
+        }
+        startSlide(activity, 0);
+        instrumentation.waitForIdleSync();
+        //交给tearDown结束当前的Activity
+        setActivity(activity);
+        activity = null;
+
+        for (int attempt = 0; attempt < GC_ATTEMPTS && countRetained(destroyed) > 0; attempt++) {
+            Runtime.getRuntime().gc();
+            Runtime.getRuntime().runFinalization();
+            Thread.sleep(100);
+        }
+        assertEquals("destroyed activities still retained", 0, countRetained(destroyed));
+    }
+
+    /**
+     * 在UI线程中开始一次滚动并触发菜单的后台加载，旋转发生时动画和加载都还没有结束
+     */
+    private void startSlide(Activity activity, final int round) {
+        final BesideSlidingLayout layout =
+                (BesideSlidingLayout) activity.findViewById(R.id.bidir_slide_layout);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layout.prewarm();
+                if (round % 2 == 0) {
+                    layout.scrollToLeftMenu();
+                } else {
+                    layout.scrollToRightMenu();
+                }
+            }
+        });
+    }
+
+    private static int countRetained(List<WeakReference<Activity>> references) {
+        int retained = 0;
+        for (WeakReference<Activity> reference : references) {
+            if (reference.get() != null) {
+                retained++;
+            }
+        }
+        return retained;
+    }
+}
@@ -0,0 +1,155 @@
+package com.yy.besideslidinglayout;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.MotionEvent;
+
+import java.lang.reflect.Field;
+
+/**
+ * 在设备上检查BesideSlidingLayout的触摸和动画路径不分配内存：onInterceptTouchEvent、onTouchEvent、
+ * SlideAnimator.onFrame以及其中的偏移量更新。所有MotionEvent提前创建，动画帧直接调用onFrame驱动，
+ * 统计只包含UI线程在这些调用中分配的对象。
+ * 帧回调的注册使用Choreographer自己的对象池，每轮之间让真实的帧回调执行完，把对象还回池中。
+ * 绘制策略使用LAYER_STRATEGY_NONE，切换硬件层由框架完成，不在检查范围内
+ */
+public class SlideAllocationTest extends ActivityInstrumentationTestCase2<MainActivity> {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final int MOVES = 30;
+    private static final long TOUCH_MILLIS = 4;
+    private static final long FRAME_NANOS = 16666667L;
+
+    /**
+     * 防止动画无法结束时死循环
+     */
+    private static final int FRAME_LIMIT = 120;
+
+    private BesideSlidingLayout mLayout;
+    private SlideAnimator mAnimator;
+
+    /**
+     * 从左边缘拖出左侧菜单的事件，以及点击主界面关闭菜单的事件
+     */
+    private MotionEvent[] mDragEvents;
+    private MotionEvent[] mTapEvents;
+
+    private long mAllocations;
+
+    public SlideAllocationTest() {
+        super(MainActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mLayout = (BesideSlidingLayout) getActivity().findViewById(R.id.bidir_slide_layout);
+        Field field = BesideSlidingLayout.class.getDeclaredField("mContentAnimator");
+        field.setAccessible(true);
+        mAnimator = (SlideAnimator) field.get(mLayout);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mLayout.setLayerStrategy(BesideSlidingLayout.LAYER_STRATEGY_NONE);
+                mLayout.setAdaptiveQuality(false);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        float y = mLayout.getHeight() / 2;
+        long downTime = SystemClock.uptimeMillis();
+        mDragEvents = new MotionEvent[MOVES + 2];
+        mDragEvents[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 5f, y, 0);
+        for (int i = 1; i <= MOVES; i++) {
+            mDragEvents[i] = MotionEvent.obtain(downTime, downTime + i * TOUCH_MILLIS,
+                    MotionEvent.ACTION_MOVE, 5f + i * 20f, y, 0);
+        }
+        mDragEvents[MOVES + 1] = MotionEvent.obtain(downTime, downTime + (MOVES + 1) * TOUCH_MILLIS,
+                MotionEvent.ACTION_UP, 5f + MOVES * 20f, y, 0);
+        float x = mLayout.getWidth() - 10f;
+        mTapEvents = new MotionEvent[] {
+                MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0),
+                MotionEvent.obtain(downTime, downTime + 50, MotionEvent.ACTION_UP, x, y, 0)
+        };
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (MotionEvent event : mDragEvents) {
+            event.recycle();
+        }
+        for (MotionEvent event : mTapEvents) {
+            event.recycle();
+        }
+        super.tearDown();
+    }
+
+    public void testSlideDoesNotAllocate() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRound(false);
+        }
+        mAllocations = 0;
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                runRound(true);
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        assertEquals("objects allocated by " + MEASURED_ROUNDS + " slides", 0, mAllocations);
+    }
+
+    /**
+     * 在UI线程中拖出左侧菜单并滚动到位，再点击主界面关闭菜单，之后等待真实的帧回调执行完
+     * @param measured 是否统计这一轮的分配
+     */
+    private void runRound(final boolean measured) {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                if (measured) {
+                    Debug.resetThreadAllocCount();
+                }
+                dispatch(mDragEvents);
+                settle();
+                dispatch(mTapEvents);
+                settle();
+                if (measured) {
+                    mAllocations += Debug.getThreadAllocCount();
+                }
+            }
+        });
+        assertFalse(mLayout.isSliding());
+        getInstrumentation().waitForIdleSync();
+    }
+
+    /**
+     * 按ViewGroup分发事件的方式调用：拦截之前交给onInterceptTouchEvent，拦截之后交给onTouchEvent。
+     * 在ACTION_DOWN上拦截时该事件也交给onTouchEvent，在移动中拦截时该事件只用于取消子布局
+     */
+    private void dispatch(MotionEvent[] events) {
+        boolean intercepted = false;
+        for (MotionEvent event : events) {
+            if (intercepted) {
+                mLayout.onTouchEvent(event);
+                continue;
+            }
+            intercepted = mLayout.onInterceptTouchEvent(event);
+            if (intercepted && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                mLayout.onTouchEvent(event);
+            }
+        }
+    }
+
+    private void settle() {
+        long frameTime = System.nanoTime();
+        for (int frames = 0; mAnimator.isRunning() && frames < FRAME_LIMIT; frames++) {
+            frameTime += FRAME_NANOS;
+            mAnimator.onFrame(frameTime);
+        }
+    }
+}
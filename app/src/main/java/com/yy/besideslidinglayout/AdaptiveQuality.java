@@ -0,0 +1,66 @@
+package com.yy.besideslidinglayout;
+
+/**
+ * 滑动效果的自适应等级，在整个进程中共享：同一个会话中所有开启了自适应的BesideSlidingLayout
+ * 使用同一个等级，一个布局的掉帧统计降低等级后，其他布局的下一次滑动也使用降低后的等级。
+ * 等级只会降低，不会自动恢复，需要恢复时由外部调用setLevel。只能在UI线程中使用
+ */
+final class AdaptiveQuality {
+
+    /**
+     * 帧数少于此值的滑动不参与判断，太短的滑动偶尔掉一帧不能说明问题
+     */
+    static final int MIN_FRAMES = 8;
+
+    /**
+     * 一次滑动中超时的帧占总帧数的比例超过此值时记为一次卡顿的滑动
+     */
+    static final float MAX_OVER_BUDGET_RATIO = 0.2f;
+
+    /**
+     * 连续卡顿的滑动达到此次数才降低一级，第一次滑动要加载菜单、创建快照，单独一次卡顿不降级
+     */
+    static final int JANKY_TRANSITIONS_TO_STEP_DOWN = 2;
+
+    private static int sLevel = BesideSlidingLayout.QUALITY_FULL;
+    private static int sJankyTransitions;
+
+    private AdaptiveQuality() {
+    }
+
+    static int getLevel() {
+        return sLevel;
+    }
+
+    /**
+     * 指定等级，同时清空卡顿计数
+     * @param level QUALITY_FULL、QUALITY_REDUCED或QUALITY_MINIMAL
+     */
+    static void setLevel(int level) {
+        sLevel = Math.max(BesideSlidingLayout.QUALITY_FULL, Math.min(BesideSlidingLayout.QUALITY_MINIMAL, level));
+        sJankyTransitions = 0;
+    }
+
+    /**
+     * 一次滑动结束时调用，按本次滑动的帧统计决定是否降低等级
+     * @param frameCount 本次滑动的帧数
+     * @param framesOverBudget 其中超时的帧数
+     * @return 等级被降低时返回true
+     */
+    static boolean onTransition(int frameCount, int framesOverBudget) {
+        if (frameCount < MIN_FRAMES) {
+            return false;
+        }
+        if (framesOverBudget <= frameCount * MAX_OVER_BUDGET_RATIO) {
+            sJankyTransitions = 0;
+            return false;
+        }
+        if (++sJankyTransitions < JANKY_TRANSITIONS_TO_STEP_DOWN
+                || sLevel == BesideSlidingLayout.QUALITY_MINIMAL) {
+            return false;
+        }
+        sLevel++;
+        sJankyTransitions = 0;
+        return true;
+    }
+}
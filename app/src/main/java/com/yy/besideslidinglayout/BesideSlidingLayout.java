@@ -1,581 +1,2210 @@
 package com.yy.besideslidinglayout;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
-import android.os.AsyncTask;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.view.WindowManager;
-import android.widget.RelativeLayout;
+
+import com.yy.besideslidinglayout.core.FrameTicker;
+import com.yy.besideslidinglayout.core.GestureRecording;
+import com.yy.besideslidinglayout.core.SlideCore;
+import com.yy.besideslidinglayout.core.SlideGesture;
+import com.yy.besideslidinglayout.core.SlideSpring;
+
+import java.util.ArrayList;
 
 /**
  * Created by YY on 2015/6/1.
  */
-//TODO 将左边菜单隐藏时滑到一半并不行，必须要滑动速度大于阈值才行
-//TODO 右边菜单隐藏时无动画效果，而且主界面移动时总会先跑到最边上
-public class BesideSlidingLayout extends RelativeLayout implements View.OnTouchListener {
+public class BesideSlidingLayout extends ViewGroup {
+
+    /**
+     * 滚动显示和隐藏菜单时，手指滑动需要达到的默认速度，单位dp/s。
+     * 松手时速度低于此值则根据主界面是否越过菜单的一半来决定滚动方向
+     */
+    public static final int SNAP_VELOCITY = 200;
+
+    /**
+     * 在距离边缘多近的位置按下时提前加载该侧以ViewStub声明的菜单，单位dp
+     */
+    private static final int PREWARM_EDGE_SIZE = 48;
+
+    /**
+     * 滑动状态的一种，表示未进行任何滑动
+     */
+    public static final int DO_NOTHING = SlideCore.DO_NOTHING;
+
+    /**
+     * 滑动状态的一种，表示正在滑出左侧菜单
+     */
+    public static final int SHOW_LEFT_MENU = SlideCore.SHOW_LEFT_MENU;
+
+    /**
+     * 滑动状态的一种，表示正在滑出右侧菜单
+     */
+    public static final int SHOW_RIGHT_MENU = SlideCore.SHOW_RIGHT_MENU;
+
+    /**
+     * 滑动状态的一种，表示正在隐藏左侧菜单
+     */
+    public static final int HIDE_LEFT_MENU = SlideCore.HIDE_LEFT_MENU;
+
+    /**
+     * 滑动状态的一种，表示正在隐藏右侧菜单
+     */
+    public static final int HIDE_RIGHT_MENU = SlideCore.HIDE_RIGHT_MENU;
+
+    /**
+     * 子布局角色的一种，表示主界面，未声明角色的子布局均视为主界面
+     */
+    public static final int ROLE_CONTENT = 0;
+
+    /**
+     * 子布局角色的一种，表示左侧菜单
+     */
+    public static final int ROLE_LEFT_MENU = 1;
+
+    /**
+     * 子布局角色的一种，表示右侧菜单
+     */
+    public static final int ROLE_RIGHT_MENU = 2;
+
+    /**
+     * 绘制策略的一种，滑动过程中直接绘制主界面和菜单
+     */
+    public static final int LAYER_STRATEGY_NONE = 0;
+
+    /**
+     * 绘制策略的一种，滑动过程中把主界面和露出的菜单放到硬件层上
+     */
+    public static final int LAYER_STRATEGY_HARDWARE = 1;
+
+    /**
+     * 绘制策略的一种，滑动过程中用主界面的位图快照代替主界面绘制
+     */
+    public static final int LAYER_STRATEGY_SNAPSHOT = 2;
+
+    /**
+     * 滑动效果等级的一种，绘制遮罩和边缘阴影，使用设置的绘制策略
+     */
+    public static final int QUALITY_FULL = 0;
+
+    /**
+     * 滑动效果等级的一种，不再绘制遮罩和边缘阴影
+     */
+    public static final int QUALITY_REDUCED = 1;
+
+    /**
+     * 滑动效果等级的一种，在QUALITY_REDUCED的基础上改用快照绘制主界面，并缩短回弹的时长
+     */
+    public static final int QUALITY_MINIMAL = 2;
+
+    /**
+     * QUALITY_MINIMAL下回弹使用的弹簧角频率，回弹时长大约缩短为原来的三分之二
+     */
+    private static final float MINIMAL_QUALITY_SPRING_FREQUENCY = SlideSpring.SPRING_FREQUENCY * 1.5f;
+
+    /**
+     * 手势状态机以及偏移量的计算，滑动状态、菜单是否显示以及主界面的偏移量都保存在这里。
+     * 偏移量大于0表示主界面向右移动露出左侧菜单，小于0表示向左移动露出右侧菜单。
+     * 偏移通过translationX作用到主界面上，滑动过程中不会触发重新布局
+     */
+    private final SlideCore mSlideCore = new SlideCore();
+
+    /**
+     * 按屏幕密度换算后的最大速度，单位像素每秒
+     */
+    private float mMaxFlingVelocity;
+
+    /**
+     * 把触摸事件转换为mSlideCore的调用，与GestureReplayer重放时使用同一套处理。
+     * 多指操作时只跟随一根手指移动
+     */
+    private final SlideGesture mSlideGesture = new SlideGesture(mSlideCore, new SlideGesture.Callback() {
+
+        @Override
+        public void onGestureDown(float x) {
+            updateMenuPresence();
+            if (!mSlideCore.isSliding()) {
+                prewarmMenuNearEdge(x);
+            }
+        }
+
+        @Override
+        public void onSettleCaught() {
+            //代码调用的滚动视为被打断
+            mContentAnimator.cancel();
+            dispatchScrollEnd(null, false);
+        }
+
+        @Override
+        public void onSlideStarted(int state, long eventTime) {
+            //事件时间与System.nanoTime使用同一个时钟
+            beginSlideMetrics(eventTime * 1000000L);
+            BesideSlidingLayout.this.onSlideStarted(state);
+        }
+
+        @Override
+        public void onDragged(long eventTime) {
+            //事件时间与System.nanoTime使用同一个时钟
+            postContentOffset(eventTime * 1000000L);
+        }
+
+        @Override
+        public float computeReleaseVelocity(long eventTime) {
+            float velocity = getScrollVelocity();
+            if (mGestureRecording != null) {
+                mGestureRecording.recordReleaseVelocity(eventTime, velocity);
+            }
+            return velocity;
+        }
+
+        @Override
+        public void onRelease(float velocity) {
+            onDragRelease(velocity);
+        }
+
+        @Override
+        public void onOpenedContentTapped(boolean leftMenuVisible) {
+            //当显示为菜单时，点击一下主布局内容则直接滚动到主布局
+            if (leftMenuVisible) {
+                scrollToContentMenuFromLeftMenu();
+            } else {
+                scrollToContentMenuFromRightMenu();
+            }
+        }
+    });
+
+    /**
+     * 交给mSlideGesture的事件，每次处理事件时复用
+     */
+    private final MotionEventSource mGestureEvent = new MotionEventSource();
+
+    /**
+     * 接受的嵌套滚动方向，不为0时由子布局通过嵌套滚动传递横向距离，本布局不再拦截触摸事件
+     */
+    private int mNestedScrollAxes;
+
+    /**
+     * 本次嵌套滚动是否已经移动了主界面，此后子布局的距离先由主界面消耗
+     */
+    private boolean mNestedSliding;
+
+    private View leftMenuLayout;
+    private View rightMenuLayout;
+    private View contentLayout;
+
+    /**
+     * 以ViewStub声明的左右菜单，菜单替换到布局中之后仍然保留，用于内存紧张时释放并重新加载
+     */
+    private LazyMenu mLeftLazyMenu;
+    private LazyMenu mRightLazyMenu;
+
+    /**
+     * 正在替换ViewStub菜单，此时不按子布局的增删查找角色
+     */
+    private boolean mSwappingLazyMenu;
+
+    /**
+     * 外部设置的子布局增删监听器
+     */
+    private OnHierarchyChangeListener mOnHierarchyChangeListener;
+
+    /**
+     * 子布局增删时重新查找各个角色对应的子布局，移除多个子布局时每移除一个回调一次
+     */
+    private final OnHierarchyChangeListener mRoleTracker = new OnHierarchyChangeListener() {
+
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            if (!mSwappingLazyMenu) {
+                findRoleChildren(null);
+            }
+            if (mOnHierarchyChangeListener != null) {
+                mOnHierarchyChangeListener.onChildViewAdded(parent, child);
+            }
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            if (!mSwappingLazyMenu) {
+                //回调时child还在子布局列表中
+                findRoleChildren(child);
+            }
+            if (mOnHierarchyChangeListener != null) {
+                mOnHierarchyChangeListener.onChildViewRemoved(parent, child);
+            }
+        }
+    };
+
+    /**
+     * 按下位置距离左右边缘小于此值时提前在后台加载该侧的菜单，单位像素
+     */
+    private int mPrewarmEdgeSize;
+
+    /**
+     * 菜单加载完成的监听器
+     */
+    private OnMenuInflateListener mOnMenuInflateListener;
+
+    /**
+     * 后台加载完成后把菜单替换到布局中
+     */
+    private final Runnable mAttachLoadedMenusRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mLeftLazyMenu != null && mLeftLazyMenu.isLoaded()) {
+                ensureMenuAttached(ROLE_LEFT_MENU);
+            }
+            if (mRightLazyMenu != null && mRightLazyMenu.isLoaded()) {
+                ensureMenuAttached(ROLE_RIGHT_MENU);
+            }
+        }
+    };
+
+    /**
+     * 菜单关闭后经过多长时间释放以ViewStub声明的菜单，单位毫秒，0表示不释放
+     */
+    private long mMenuIdleTimeout;
+
+    /**
+     * 菜单被释放的监听器
+     */
+    private OnMenuEvictListener mOnMenuEvictListener;
+
+    /**
+     * 菜单关闭超过mMenuIdleTimeout后释放菜单
+     */
+    private final Runnable mEvictIdleMenusRunnable = new Runnable() {
+        @Override
+        public void run() {
+            evictClosedMenus();
+        }
+    };
+
+    /**
+     * 系统内存紧张时释放已经关闭的菜单，在attach到窗口期间注册
+     */
+    private final ComponentCallbacks2 mTrimMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                evictClosedMenus();
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            evictClosedMenus();
+        }
+    };
+
+    /**
+     * 菜单完全露出时盖在主界面上的遮罩颜色，透明度随露出的比例变化，为0时不绘制
+     */
+    private int mScrimColor;
+    private final Paint mScrimPaint = new Paint();
+
+    /**
+     * 绘制在主界面靠近露出菜单一侧边缘外的阴影，按左侧菜单的方向绘制，右侧菜单露出时水平翻转
+     */
+    private Drawable mEdgeShadow;
+    private int mEdgeShadowWidth;
+
+    /**
+     * 主界面不透明时是否去掉窗口背景
+     */
+    private boolean mSkipWindowBackground;
+
+    /**
+     * 被去掉的窗口背景，关闭选项或者从窗口移除时恢复
+     */
+    private Drawable mRemovedWindowBackground;
+    private View mWindowRoot;
+
+    /**
+     * 恢复保存的状态后，在下一次测量时直接放到的位置，以占菜单宽度的比例表示
+     */
+    private float mRestoredOffsetFraction;
+    private boolean mRestorePending;
+
+    /**
+     * 最近一次测量得到的本布局尺寸，以EXACTLY的测量规格保存，替换菜单时用于立即测量新的菜单
+     */
+    private int mLastWidthMeasureSpec;
+    private int mLastHeightMeasureSpec;
+
+    /**
+     * 已经作用到主界面translationX上的偏移量
+     */
+    private int mAppliedOffset;
+
+    /**
+     * 拖动时是否已经安排了下一帧更新主界面的位置
+     */
+    private boolean mOffsetPosted;
+
+    /**
+     * 在下一帧把拖动得到的偏移量作用到主界面上，触摸事件频率高于刷新率时一帧只更新一次。
+     * 与滚动动画一样由SlideTicker驱动，统计时使用Choreographer的帧时间
+     */
+    private final FrameTicker.Client mDragFrame = new FrameTicker.Client() {
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            beginTraceSection("BesideSlidingLayout#dragFrame");
+            mOffsetPosted = false;
+            applyContentOffset();
+            mSlideMetrics.onFrame(frameTimeNanos);
+            endTraceSection();
+            return false;
+        }
+    };
+
+    /**
+     * 用于计算手指滑动的速度，手势开始时从VelocityTrackerPool借出，手势结束或者从窗口移除时归还
+     */
+    private VelocityTracker mVelocityTracker;
+
+    /**
+     * 正在进行的手势录制，为null时不录制
+     */
+    private GestureRecording mGestureRecording;
+
+    /**
+     * 录制时复用的手指id和坐标数组
+     */
+    private int[] mRecordIds;
+    private float[] mRecordX;
+    private float[] mRecordY;
+
+    /**
+     * 当前代码调用的滚动的结束监听器
+     */
+    private OnScrollEndListener mOnScrollEndListener;
+
+    /**
+     * 等待滑动停止后执行的任务，以及执行时交换使用的列表，执行任务时新加入的任务留到下一次
+     */
+    private ArrayList<Runnable> mSettledActions = new ArrayList<Runnable>();
+    private ArrayList<Runnable> mRunningSettledActions = new ArrayList<Runnable>();
+
+    /**
+     * 滑动统计数据的监听器，为null时不统计
+     */
+    private OnSlideMetricsListener mOnSlideMetricsListener;
+
+    /**
+     * 当前滑动的统计数据，每次滑动复用
+     */
+    private final SlideMetrics mSlideMetrics = new SlideMetrics();
+
+    /**
+     * 滑动过程中使用的绘制策略
+     */
+    private final SlideLayers mSlideLayers = new SlideLayers();
+
+    /**
+     * 设置的绘制策略，效果等级为QUALITY_MINIMAL时实际使用快照
+     */
+    private int mLayerStrategy;
+
+    /**
+     * 是否按掉帧情况自动降低滑动效果，等级由AdaptiveQuality在整个进程中共享
+     */
+    private boolean mAdaptiveQuality;
+
+    /**
+     * 本布局当前使用的效果等级，只在滑动开始前和滑动结束后更新，滑动过程中效果不会突变
+     */
+    private int mQualityLevel = QUALITY_FULL;
+
+    private OnQualityLevelChangeListener mOnQualityLevelChangeListener;
+
+    /**
+     * 主界面的滚动动画，动画值为主界面的偏移量
+     */
+    private final SlideAnimator mContentAnimator = new SlideAnimator(new SlideAnimator.Callback() {
+        @Override
+        public void onAnimationUpdate(int offset, long frameTimeNanos) {
+            beginTraceSection("BesideSlidingLayout#animationFrame");
+            mSlideCore.setContentOffset(offset);
+            applyContentOffset();
+            mSlideMetrics.onFrame(frameTimeNanos);
+            mSlideMetrics.requestFrame(frameTimeNanos);
+            endTraceSection();
+        }
+
+        @Override
+        public void onAnimationEnd(int offset, long frameTimeNanos) {
+            beginTraceSection("BesideSlidingLayout#animationFrame");
+            mSlideCore.finishSlide(offset);
+            applyContentOffset();
+            if (frameTimeNanos != 0) {
+                mSlideMetrics.onFrame(frameTimeNanos);
+            }
+            mSlideLayers.end();
+            endTraceSection();
+            dispatchSlideMetrics();
+            scheduleIdleMenuEviction();
+            dispatchScrollEnd(null, true);
+            runSettledActions();
+        }
+    });
+
+    /**
+     *
+     * @param context
+     * @param attrs
+     */
+    public BesideSlidingLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        super.setOnHierarchyChangeListener(mRoleTracker);
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mSlideCore.setTouchSlop(configuration.getScaledTouchSlop());
+        mMaxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+        float density = getResources().getDisplayMetrics().density;
+        mPrewarmEdgeSize = (int) (PREWARM_EDGE_SIZE * density + 0.5f);
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.BesideSlidingLayout);
+        mLayerStrategy = a.getInt(R.styleable.BesideSlidingLayout_layerStrategy, LAYER_STRATEGY_HARDWARE);
+        mSlideLayers.setStrategy(mLayerStrategy);
+        mSlideCore.setSnapVelocity(a.getDimension(R.styleable.BesideSlidingLayout_snapVelocity,
+                SNAP_VELOCITY * density));
+        mSlideCore.setEdgeSize(a.getDimensionPixelSize(R.styleable.BesideSlidingLayout_edgeSize, 0));
+        mSlideCore.setLockAngle(a.getFloat(R.styleable.BesideSlidingLayout_lockAngle,
+                SlideCore.DEFAULT_LOCK_ANGLE));
+        mMenuIdleTimeout = a.getInt(R.styleable.BesideSlidingLayout_menuIdleTimeout, 0);
+        mSkipWindowBackground = a.getBoolean(R.styleable.BesideSlidingLayout_skipWindowBackground, false);
+        mScrimColor = a.getColor(R.styleable.BesideSlidingLayout_scrimColor, 0);
+        mEdgeShadowWidth = a.getDimensionPixelSize(R.styleable.BesideSlidingLayout_edgeShadowWidth, -1);
+        setEdgeShadow(a.getDrawable(R.styleable.BesideSlidingLayout_edgeShadow));
+        mAdaptiveQuality = a.getBoolean(R.styleable.BesideSlidingLayout_adaptiveQuality, false);
+        a.recycle();
+        applyQualityLevel();
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        mSlideMetrics.setRefreshRate(windowManager.getDefaultDisplay().getRefreshRate());
+    }
+
+    /**
+     * 将界面滚动到左侧菜单界面
+     */
+    public void scrollToLeftMenu() {
+        scrollToLeftMenu((OnScrollEndListener) null);
+    }
+
+    /**
+     * 将界面滚动到左侧菜单界面。正在滚动时从当前位置和速度转向新的终点，不会跳动
+     * @param listener 滚动结束时回调，可以为null
+     */
+    public void scrollToLeftMenu(OnScrollEndListener listener) {
+        dispatchScrollEnd(listener, false);
+        scrollToLeftMenu(mContentAnimator.getVelocity());
+    }
+
+    /**
+     * 将界面滚动到右侧菜单界面
+     */
+    public void scrollToRightMenu() {
+        scrollToRightMenu((OnScrollEndListener) null);
+    }
+
+    /**
+     * 将界面滚动到右侧菜单界面。正在滚动时从当前位置和速度转向新的终点，不会跳动
+     * @param listener 滚动结束时回调，可以为null
+     */
+    public void scrollToRightMenu(OnScrollEndListener listener) {
+        dispatchScrollEnd(listener, false);
+        scrollToRightMenu(mContentAnimator.getVelocity());
+    }
+
+    /**
+     * 将界面从左侧菜单界面滚动到主界面
+     */
+    public void scrollToContentMenuFromLeftMenu() {
+        scrollToContentMenuFromLeftMenu((OnScrollEndListener) null);
+    }
+
+    /**
+     * 将界面从左侧菜单界面滚动到主界面。正在滚动时从当前位置和速度转向新的终点，不会跳动
+     * @param listener 滚动结束时回调，可以为null
+     */
+    public void scrollToContentMenuFromLeftMenu(OnScrollEndListener listener) {
+        dispatchScrollEnd(listener, false);
+        scrollToContentMenuFromLeftMenu(mContentAnimator.getVelocity());
+    }
+
+    /**
+     * 将界面从右侧菜单界面滚动到主界面
+     */
+    public void scrollToContentMenuFromRightMenu() {
+        scrollToContentMenuFromRightMenu((OnScrollEndListener) null);
+    }
+
+    /**
+     * 将界面从右侧菜单界面滚动到主界面。正在滚动时从当前位置和速度转向新的终点，不会跳动
+     * @param listener 滚动结束时回调，可以为null
+     */
+    public void scrollToContentMenuFromRightMenu(OnScrollEndListener listener) {
+        dispatchScrollEnd(listener, false);
+        scrollToContentMenuFromRightMenu(mContentAnimator.getVelocity());
+    }
+
+    /**
+     * 设置滚动显示和隐藏菜单时手指需要达到的速度
+     * @param dpPerSecond 速度，单位dp/s
+     */
+    public void setSnapVelocity(float dpPerSecond) {
+        mSlideCore.setSnapVelocity(dpPerSecond * getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * 获取滚动显示和隐藏菜单时手指需要达到的速度
+     * @return 速度，单位dp/s
+     */
+    public float getSnapVelocity() {
+        return mSlideCore.getSnapVelocity() / getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * 设置可以滑出菜单的边缘区域。菜单都关闭时，只有在距离左右边缘小于此值的位置按下才能滑出该侧菜单，
+     * 从其他位置开始的手势直接交给子布局，不再经过滑动的判断
+     * @param dp 边缘区域的宽度，单位dp，0表示在任意位置按下都可以滑出菜单
+     */
+    public void setEdgeSize(float dp) {
+        mSlideCore.setEdgeSize((int) (dp * getResources().getDisplayMetrics().density + 0.5f));
+    }
+
+    /**
+     * 获取可以滑出菜单的边缘区域的宽度
+     * @return 宽度，单位dp
+     */
+    public float getEdgeSize() {
+        return mSlideCore.getEdgeSize() / getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * 设置方向锁定角度。手指移动超过touchSlop时，移动方向与水平方向的夹角超过此值的手势判定为纵向滑动，
+     * 直到手指抬起都直接交给子布局
+     * @param degrees 角度，单位度，取值范围(0, 90)，默认为30
+     */
+    public void setLockAngle(float degrees) {
+        mSlideCore.setLockAngle(degrees);
+    }
+
+    public float getLockAngle() {
+        return mSlideCore.getLockAngle();
+    }
+
+    /**
+     * 设置滑动过程中的绘制策略，可以根据设备性能选择最合适的一种
+     * @param strategy LAYER_STRATEGY_NONE、LAYER_STRATEGY_HARDWARE或LAYER_STRATEGY_SNAPSHOT
+     */
+    public void setLayerStrategy(int strategy) {
+        mLayerStrategy = strategy;
+        mSlideLayers.setStrategy(getEffectiveLayerStrategy());
+        invalidate();
+    }
+
+    /**
+     * 获取设置的绘制策略，效果等级为QUALITY_MINIMAL时滑动过程中实际使用LAYER_STRATEGY_SNAPSHOT
+     * @return LAYER_STRATEGY_NONE、LAYER_STRATEGY_HARDWARE或LAYER_STRATEGY_SNAPSHOT
+     */
+    public int getLayerStrategy() {
+        return mLayerStrategy;
+    }
+
+    /**
+     * 设置是否按掉帧情况自动降低滑动效果。开启后统计每次滑动中超时的帧，连续卡顿时依次去掉遮罩和阴影、
+     * 改用快照绘制并缩短回弹时长。等级在整个进程中共享，一旦降低，本次会话中所有开启了此选项的布局都使用降低后的效果
+     * @param adaptive 为false时始终使用完整的效果
+     */
+    public void setAdaptiveQuality(boolean adaptive) {
+        mAdaptiveQuality = adaptive;
+        if (!mSlideCore.isSliding()) {
+            applyQualityLevel();
+        }
+    }
+
+    public boolean isAdaptiveQuality() {
+        return mAdaptiveQuality;
+    }
+
+    /**
+     * 获取本布局当前使用的效果等级，没有开启自适应时始终为QUALITY_FULL
+     * @return QUALITY_FULL、QUALITY_REDUCED或QUALITY_MINIMAL
+     */
+    public int getQualityLevel() {
+        return mQualityLevel;
+    }
+
+    /**
+     * 获取本次会话中自适应选出的效果等级
+     * @return QUALITY_FULL、QUALITY_REDUCED或QUALITY_MINIMAL
+     */
+    public static int getSessionQualityLevel() {
+        return AdaptiveQuality.getLevel();
+    }
+
+    /**
+     * 指定本次会话的效果等级，例如根据上一次会话保存的结果直接从较低的等级开始，或者在用户关闭省电模式后恢复完整效果。
+     * 开启了自适应的布局从下一次滑动开始使用新的等级，之后仍会按掉帧情况继续降低
+     * @param level QUALITY_FULL、QUALITY_REDUCED或QUALITY_MINIMAL
+     */
+    public static void setSessionQualityLevel(int level) {
+        AdaptiveQuality.setLevel(level);
+    }
+
+    /**
+     * 设置效果等级变化的监听器，本布局的滑动统计使会话的效果等级降低时回调
+     * @param listener 监听器，可以为null
+     */
+    public void setOnQualityLevelChangeListener(OnQualityLevelChangeListener listener) {
+        mOnQualityLevelChangeListener = listener;
+    }
+
+    /**
+     * 是否正在滑动：手指拖动主界面、主界面在滚动中或者被手指按住停在中途时都返回true。
+     * 滑动过程中改变主界面的内容会导致重新布局，造成滑动卡顿，可以通过runWhenSettled推迟
+     * @return 正在滑动时返回true
+     */
+    public boolean isSliding() {
+        return mSlideCore.isSliding();
+    }
+
+    /**
+     * 在主界面停止移动后执行action，当前没有在滑动时立即执行。
+     * 多个任务按加入的顺序在同一帧中执行，同一个action在执行前重复加入只执行一次
+     * @param action 需要在UI线程中执行的任务，通常是会引起主界面重新布局的内容更新
+     */
+    public void runWhenSettled(Runnable action) {
+        if (!mSlideCore.isSliding()) {
+            action.run();
+        } else if (!mSettledActions.contains(action)) {
+            mSettledActions.add(action);
+        }
+    }
+
+    /**
+     * 取消通过runWhenSettled加入的还没有执行的任务
+     * @param action 需要取消的任务
+     */
+    public void cancelWhenSettled(Runnable action) {
+        mSettledActions.remove(action);
+    }
+
+    /**
+     * 左侧菜单是否完全显示出来，滑动过程中此值无效
+     * @return 左侧菜单完全显示出来则返回true，否则返回false
+     */
+    public boolean isLeftLayoutVisible() {
+        return mSlideCore.isLeftMenuVisible();
+    }
+
+    /**
+     * 右侧菜单是否完全显示出来，滑动过程中此值无效
+     * @return 右侧菜单完全显示则返回true，否则返回false
+     */
+    public boolean isRightLayoutVisible() {
+        return mSlideCore.isRightMenuVisible();
+    }
+
+    /**
+     * 提前在后台线程中加载以ViewStub声明的菜单，加载完成后在UI线程中替换掉ViewStub，
+     * 之后第一次滑动时不需要再等待加载
+     */
+    public void prewarm() {
+        if (mLeftLazyMenu != null) {
+            mLeftLazyMenu.prewarm();
+        }
+        if (mRightLazyMenu != null) {
+            mRightLazyMenu.prewarm();
+        }
+    }
+
+    /**
+     * 设置菜单加载完成的监听器，以ViewStub声明的菜单替换到布局中之后回调，
+     * 菜单被释放后重新加载时会再次回调
+     * @param listener 监听器
+     */
+    public void setOnMenuInflateListener(OnMenuInflateListener listener) {
+        mOnMenuInflateListener = listener;
+    }
+
+    /**
+     * 设置菜单被释放的监听器，可以在回调中保存控件自动保存之外的状态并释放对菜单中控件的引用
+     * @param listener 监听器
+     */
+    public void setOnMenuEvictListener(OnMenuEvictListener listener) {
+        mOnMenuEvictListener = listener;
+    }
+
+    /**
+     * 设置菜单关闭后经过多长时间释放以ViewStub声明的菜单，下一次向该菜单滑动时重新加载
+     * @param millis 时长，单位毫秒，0表示只在内存紧张时释放
+     */
+    public void setMenuIdleTimeout(long millis) {
+        mMenuIdleTimeout = millis;
+        scheduleIdleMenuEviction();
+    }
+
+    /**
+     * 设置主界面不透明时是否去掉窗口背景。本布局铺满窗口、主界面和菜单的背景都不透明时，
+     * 窗口背景总是被完全遮住，去掉后每一帧可以少绘制一层
+     * @param skip 为true时去掉窗口背景，为false时恢复
+     */
+    public void setSkipWindowBackground(boolean skip) {
+        mSkipWindowBackground = skip;
+        updateWindowBackground();
+    }
+
+    /**
+     * 设置菜单露出时盖在主界面上的遮罩颜色，遮罩的透明度按菜单露出的比例从0变化到该颜色的透明度。
+     * 遮罩直接绘制在本布局上，不需要在主界面上叠加半透明的控件
+     * @param color 菜单完全露出时的遮罩颜色，为0时不绘制遮罩
+     */
+    public void setScrimColor(int color) {
+        mScrimColor = color;
+        invalidate();
+    }
+
+    public int getScrimColor() {
+        return mScrimColor;
+    }
+
+    /**
+     * 设置主界面边缘的阴影，绘制在主界面靠近露出菜单的一侧之外，透明度按菜单露出的比例变化。
+     * 阴影按左侧菜单露出时的方向提供，即绘制在主界面左边缘的左侧，右侧菜单露出时自动水平翻转
+     * @param shadow 阴影，为null时不绘制
+     */
+    public void setEdgeShadow(Drawable shadow) {
+        //阴影的透明度每帧都会改变，不能影响同一资源的其他使用者
+        mEdgeShadow = shadow != null ? shadow.mutate() : null;
+        invalidate();
+    }
+
+    /**
+     * 设置主界面边缘的阴影
+     * @param resId 阴影的资源id
+     */
+    public void setEdgeShadowResource(int resId) {
+        setEdgeShadow(getResources().getDrawable(resId));
+    }
+
+    /**
+     * 设置阴影的宽度
+     * @param width 宽度，单位像素，小于0时使用阴影自身的宽度
+     */
+    public void setEdgeShadowWidth(int width) {
+        mEdgeShadowWidth = width;
+        invalidate();
+    }
+
+    /**
+     * 释放所有已经关闭的以ViewStub声明的菜单，释放前保存控件的状态，下一次加载后恢复。
+     * 滑动过程中调用不做任何事
+     */
+    public void evictClosedMenus() {
+        removeCallbacks(mEvictIdleMenusRunnable);
+        if (mSlideCore.isSliding()) {
+            return;
+        }
+        if (mSlideCore.getContentOffset() <= 0) {
+            evictMenu(mLeftLazyMenu, ROLE_LEFT_MENU);
+        }
+        if (mSlideCore.getContentOffset() >= 0) {
+            evictMenu(mRightLazyMenu, ROLE_RIGHT_MENU);
+        }
+        //快照在下一次滑动时重新生成
+        mSlideLayers.release();
+    }
+
+    /**
+     * 设置滑动统计数据的监听器，每次滑动结束时回调一次。统计数据保存在预先分配好的对象中，
+     * 开启统计不会在滑动过程中创建对象
+     * @param listener 监听器，为null时停止统计
+     */
+    public void setOnSlideMetricsListener(OnSlideMetricsListener listener) {
+        mOnSlideMetricsListener = listener;
+    }
+
+    /**
+     * 开始录制本布局收到的触摸事件，录制结果可以保存下来并通过GestureReplayer重放。
+     * 录制过程中不会创建对象，超出recording容量的事件会被丢弃
+     * @param recording 用于保存事件的录制对象，已有的内容会被清空
+     */
+    public void startGestureRecording(GestureRecording recording) {
+        if (mRecordIds == null) {
+            mRecordIds = new int[GestureRecording.MAX_POINTERS];
+            mRecordX = new float[GestureRecording.MAX_POINTERS];
+            mRecordY = new float[GestureRecording.MAX_POINTERS];
+        }
+        recording.begin(getWidth(), mSlideCore.getLeftMenuWidth(), mSlideCore.getRightMenuWidth(),
+                mSlideCore.getTouchSlop(), mSlideCore.getSnapVelocity(), mSlideCore.getEdgeSize(),
+                mSlideCore.getLockAngle(), mSlideCore.getContentOffset());
+        mGestureRecording = recording;
+    }
+
+    /**
+     * 停止录制触摸事件
+     * @return 录制结果，没有在录制时返回null
+     */
+    public GestureRecording stopGestureRecording() {
+        GestureRecording recording = mGestureRecording;
+        mGestureRecording = null;
+        return recording;
+    }
+
+    /**
+     * 本布局自己需要监听子布局的增删，外部设置的监听器由本布局转发
+     */
+    @Override
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        mOnHierarchyChangeListener = listener;
+    }
+
+    /**
+     * 根据子布局声明的角色找到左侧菜单、右侧菜单以及主界面，与子布局的顺序无关。
+     * 声明为ViewStub的菜单在需要时才加载。换上新的主界面时让它停在当前的偏移量上
+     * @param removed 正在移除的子布局，不参与查找，没有时为null
+     */
+    private void findRoleChildren(View removed) {
+        View oldContent = contentLayout;
+        leftMenuLayout = null;
+        rightMenuLayout = null;
+        contentLayout = null;
+        LazyMenu leftLazyMenu = null;
+        LazyMenu rightLazyMenu = null;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            //移除多个子布局时，已经移除的位置为null
+            if (child == null || child == removed) {
+                continue;
+            }
+            switch (((LayoutParams) child.getLayoutParams()).role) {
+                case ROLE_LEFT_MENU:
+                    leftMenuLayout = child;
+                    leftLazyMenu = obtainLazyMenu(mLeftLazyMenu, child);
+                    break;
+                case ROLE_RIGHT_MENU:
+                    rightMenuLayout = child;
+                    rightLazyMenu = obtainLazyMenu(mRightLazyMenu, child);
+                    break;
+                default:
+                    contentLayout = child;
+                    break;
+            }
+        }
+        mLeftLazyMenu = leftLazyMenu;
+        mRightLazyMenu = rightLazyMenu;
+        if (contentLayout != null && contentLayout != oldContent) {
+            contentLayout.setTranslationX(mAppliedOffset);
+        }
+    }
+
+    /**
+     * 菜单是ViewStub时返回对应的LazyMenu，已有的LazyMenu属于同一个ViewStub或者由它加载时继续使用
+     * @param lazyMenu 已有的LazyMenu，可以为null
+     * @param menu 菜单
+     * @return 菜单不是以ViewStub声明时返回null
+     */
+    private LazyMenu obtainLazyMenu(LazyMenu lazyMenu, View menu) {
+        if (lazyMenu != null && (lazyMenu.getStub() == menu || lazyMenu.getAttachedMenu() == menu)) {
+            return lazyMenu;
+        }
+        if (!(menu instanceof ViewStub)) {
+            return null;
+        }
+        return new LazyMenu((ViewStub) menu, this, mAttachLoadedMenusRunnable);
+    }
+
+    /**
+     * 把加载好的菜单替换到ViewStub的位置上，使用ViewStub的布局参数，并立即测量和布局，
+     * 让接下来的第一帧滑动就能使用菜单的宽度
+     * @param lazyMenu 需要替换的菜单
+     */
+    private void attachLazyMenu(LazyMenu lazyMenu) {
+        View menu = lazyMenu.get();
+        ViewStub stub = lazyMenu.getStub();
+        int index = indexOfChild(stub);
+        ViewGroup.LayoutParams params = stub.getLayoutParams();
+        lazyMenu.setAttachedMenu(menu);
+        swapChild(index, menu, params);
+        lazyMenu.restoreState(menu);
+        if (mLastWidthMeasureSpec != 0) {
+            measureChildWithMargins(menu, mLastWidthMeasureSpec, 0, mLastHeightMeasureSpec, 0);
+            updateMenuWidths();
+            layoutChild(menu, getWidth());
+        }
+        if (mOnMenuInflateListener != null) {
+            mOnMenuInflateListener.onMenuInflated(menu, ((LayoutParams) params).role);
+        }
+    }
+
+    /**
+     * 确保即将露出的菜单已经加载并替换到布局中
+     * @param role ROLE_LEFT_MENU或ROLE_RIGHT_MENU
+     */
+    private void ensureMenuAttached(int role) {
+        LazyMenu lazyMenu = role == ROLE_LEFT_MENU ? mLeftLazyMenu : mRightLazyMenu;
+        if (lazyMenu != null && lazyMenu.getAttachedMenu() == null) {
+            attachLazyMenu(lazyMenu);
+        }
+    }
+
+    /**
+     * 把已经加载的菜单换回ViewStub
+     * @param lazyMenu 菜单，为null或者还没有加载时不做任何事
+     * @param role ROLE_LEFT_MENU或ROLE_RIGHT_MENU
+     */
+    private void evictMenu(LazyMenu lazyMenu, int role) {
+        if (lazyMenu == null || lazyMenu.getAttachedMenu() == null) {
+            return;
+        }
+        View menu = lazyMenu.getAttachedMenu();
+        if (mOnMenuEvictListener != null) {
+            mOnMenuEvictListener.onMenuEvicted(menu, role);
+        }
+        lazyMenu.evict(menu);
+        int index = indexOfChild(menu);
+        ViewGroup.LayoutParams params = menu.getLayoutParams();
+        swapChild(index, lazyMenu.getStub(), params);
+    }
+
+    /**
+     * 在ViewStub和加载出的菜单之间替换子布局。替换过程中菜单的角色暂时没有对应的子布局，
+     * 等替换完成后再查找，避免丢掉对应的LazyMenu
+     */
+    private void swapChild(int index, View child, ViewGroup.LayoutParams params) {
+        mSwappingLazyMenu = true;
+        try {
+            removeViewAt(index);
+            addView(child, index, params);
+        } finally {
+            mSwappingLazyMenu = false;
+        }
+        findRoleChildren(null);
+    }
+
+    /**
+     * 菜单都关闭时，按mMenuIdleTimeout安排释放菜单
+     */
+    private void scheduleIdleMenuEviction() {
+        removeCallbacks(mEvictIdleMenusRunnable);
+        if (mMenuIdleTimeout > 0 && !mSlideCore.isSliding() && mSlideCore.getContentOffset() == 0
+                && (mLeftLazyMenu != null || mRightLazyMenu != null)) {
+            postDelayed(mEvictIdleMenusRunnable, mMenuIdleTimeout);
+        }
+    }
+
+    /**
+     * 主界面完全显示时在靠近边缘的位置按下，提前在后台加载该侧的菜单
+     * @param x 按下的横坐标
+     */
+    private void prewarmMenuNearEdge(float x) {
+        if (mSlideCore.getContentOffset() != 0) {
+            return;
+        }
+        if (mLeftLazyMenu != null && x < mPrewarmEdgeSize) {
+            mLeftLazyMenu.prewarm();
+        } else if (mRightLazyMenu != null && x > getWidth() - mPrewarmEdgeSize) {
+            mRightLazyMenu.prewarm();
+        }
+    }
+
+    /**
+     * 本布局的尺寸由主界面决定：主界面按父布局的测量规格减去内边距测量，wrap_content或者不限制尺寸时
+     * 本布局与主界面一样大。主界面铺满内边距以内的区域，左右菜单按本布局最终的尺寸测量，使用各自声明的宽度。
+     * 主界面的测量结果与最终尺寸一致时每个子布局只测量一次。
+     * 旋转、分屏或者窗口大小变化时主界面的偏移量按比例换算，打开的菜单保持打开，正在进行的滚动转向新的终点
+     * @param widthMeasureSpec 宽度测量规格
+     * @param heightMeasureSpec 高度测量规格
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int paddingWidth = getPaddingLeft() + getPaddingRight();
+        int paddingHeight = getPaddingTop() + getPaddingBottom();
+        boolean hasContent = contentLayout != null && contentLayout.getVisibility() != View.GONE;
+        int contentWidth = 0;
+        int contentHeight = 0;
+        if (hasContent) {
+            LayoutParams lp = (LayoutParams) contentLayout.getLayoutParams();
+            contentLayout.measure(getChildMeasureSpec(widthMeasureSpec, paddingWidth, lp.width),
+                    getChildMeasureSpec(heightMeasureSpec, paddingHeight, lp.height));
+            contentWidth = contentLayout.getMeasuredWidth();
+            contentHeight = contentLayout.getMeasuredHeight();
+        }
+        int width = resolveSize(Math.max(contentWidth + paddingWidth, getSuggestedMinimumWidth()),
+                widthMeasureSpec);
+        int height = resolveSize(Math.max(contentHeight + paddingHeight, getSuggestedMinimumHeight()),
+                heightMeasureSpec);
+        setMeasuredDimension(width, height);
+        mSlideCore.setWidth(width);
+        mLastWidthMeasureSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+        mLastHeightMeasureSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
+
+        int innerWidth = Math.max(0, width - paddingWidth);
+        int innerHeight = Math.max(0, height - paddingHeight);
+        if (hasContent && (contentWidth != innerWidth || contentHeight != innerHeight)) {
+            //主界面的测量结果与最终尺寸不同，例如wrap_content的主界面放在固定尺寸的本布局中，按最终尺寸再测量一次
+            contentLayout.measure(MeasureSpec.makeMeasureSpec(innerWidth, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(innerHeight, MeasureSpec.EXACTLY));
+        }
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child != contentLayout && child.getVisibility() != View.GONE) {
+                measureChildWithMargins(child, mLastWidthMeasureSpec, 0, mLastHeightMeasureSpec, 0);
+            }
+        }
+        updateMenuWidths();
+        applyRestoredOffset();
+    }
+
+    /**
+     * 把恢复的位置换算成偏移量，直接停在该位置，不经过滚动动画，偏移量在接下来的onLayout中生效
+     */
+    private void applyRestoredOffset() {
+        if (!mRestorePending) {
+            return;
+        }
+        mRestorePending = false;
+        if (mSlideCore.isSliding()) {
+            return;
+        }
+        if (mRestoredOffsetFraction > 0) {
+            mSlideCore.finishSlide(Math.round(mRestoredOffsetFraction * mSlideCore.getLeftMenuWidth()));
+            showMenu(leftMenuLayout, rightMenuLayout);
+        } else {
+            mSlideCore.finishSlide(Math.round(mRestoredOffsetFraction * mSlideCore.getRightMenuWidth()));
+            showMenu(rightMenuLayout, leftMenuLayout);
+        }
+        scheduleIdleMenuEviction();
+    }
+
+    /**
+     * 保存露出的菜单以及主界面的位置。正在滑动时保存滑动的终点
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState ss = new SavedState(super.onSaveInstanceState());
+        int offset;
+        if (mContentAnimator.isRunning()) {
+            offset = mContentAnimator.getTarget();
+        } else if (mSlideCore.isSliding()) {
+            offset = mSlideCore.getSettleTarget(0);
+        } else {
+            offset = mSlideCore.getContentOffset();
+        }
+        if (offset > 0) {
+            ss.openMenu = ROLE_LEFT_MENU;
+            ss.offsetFraction = (float) offset / mSlideCore.getLeftMenuWidth();
+        } else if (offset < 0) {
+            ss.openMenu = ROLE_RIGHT_MENU;
+            ss.offsetFraction = (float) offset / mSlideCore.getRightMenuWidth();
+        }
+        return ss;
+    }
+
+    /**
+     * 恢复露出的菜单。以ViewStub声明的菜单立即加载，使菜单中控件的状态随后也能恢复；
+     * 主界面在下一次测量和布局中直接放到保存的位置，不播放动画，也不会额外触发一次布局
+     */
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+        if (ss.openMenu == ROLE_CONTENT || mSlideCore.isSliding()) {
+            return;
+        }
+        //ViewGroup先恢复自身再恢复子布局，这里替换进来的菜单也会恢复控件的状态
+        ensureMenuAttached(ss.openMenu);
+        mRestoredOffsetFraction = ss.offsetFraction;
+        mRestorePending = true;
+        if (mLastWidthMeasureSpec != 0) {
+            //已经测量过的布局直接在当前尺寸下恢复
+            applyRestoredOffset();
+            applyContentOffset();
+        }
+    }
+
+    /**
+     * 按测量结果更新菜单的宽度，宽度变化时让正在进行的滚动转向新的终点
+     */
+    private void updateMenuWidths() {
+        int leftMenuWidth = getMenuWidth(leftMenuLayout);
+        int rightMenuWidth = getMenuWidth(rightMenuLayout);
+        if (leftMenuWidth == mSlideCore.getLeftMenuWidth()
+                && rightMenuWidth == mSlideCore.getRightMenuWidth()) {
+            return;
+        }
+        int target = mContentAnimator.isRunning() ? mContentAnimator.getTarget() : 0;
+        mSlideCore.setMenuWidths(leftMenuWidth, rightMenuWidth);
+        if (target > 0) {
+            retargetAnimation(leftMenuWidth);
+        } else if (target < 0) {
+            retargetAnimation(-rightMenuWidth);
+        }
+    }
+
+    /**
+     * 从换算后的位置和当前速度继续滚动到新的终点
+     * @param target 新的终点
+     */
+    private void retargetAnimation(int target) {
+        if (target != mContentAnimator.getTarget()) {
+            mContentAnimator.start(mSlideCore.getContentOffset(), target, mContentAnimator.getVelocity());
+        }
+    }
+
+    /**
+     * 左侧菜单贴着左边，右侧菜单贴着右边，主界面铺满内边距以内的区域，滑动偏移由translationX单独处理
+     * @param isChanged 界面是否变化
+     * @param l left
+     * @param t top
+     * @param r right
+     * @param b bottom
+     */
+    @Override
+    protected void onLayout(boolean isChanged, int l, int t, int r, int b) {
+        mSlideMetrics.onLayout();
+        int width = r - l;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != View.GONE) {
+                layoutChild(child, width);
+            }
+        }
+        //尺寸变化后换算出的偏移量在同一次布局中生效
+        applyContentOffset();
+    }
+
+    /**
+     * 按子布局的角色确定其位置
+     * @param child 子布局
+     * @param width 本布局的宽度
+     */
+    private void layoutChild(View child, int width) {
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        int childWidth = child.getMeasuredWidth();
+        int childLeft;
+        int childTop = getPaddingTop();
+        switch (lp.role) {
+            case ROLE_LEFT_MENU:
+                childLeft = getPaddingLeft() + lp.leftMargin;
+                childTop += lp.topMargin;
+                break;
+            case ROLE_RIGHT_MENU:
+                childLeft = width - getPaddingRight() - lp.rightMargin - childWidth;
+                childTop += lp.topMargin;
+                break;
+            default:
+                childLeft = getPaddingLeft();
+                break;
+        }
+        child.layout(childLeft, childTop, childLeft + childWidth, childTop + child.getMeasuredHeight());
+    }
+
+    /**
+     * 按子布局更新左右菜单是否存在。还没有加载的ViewStub菜单宽度为0，但是可以滑出，
+     * 设置为GONE的菜单不能滑出
+     */
+    private void updateMenuPresence() {
+        mSlideCore.setMenusPresent(isMenuPresent(leftMenuLayout), isMenuPresent(rightMenuLayout));
+    }
+
+    private static boolean isMenuPresent(View menu) {
+        return menu instanceof ViewStub || (menu != null && menu.getVisibility() != View.GONE);
+    }
+
+    /**
+     * 获取菜单占用的宽度，菜单不存在时为0
+     * @param menu 菜单布局
+     * @return 菜单测量宽度加上左右边距
+     */
+    private int getMenuWidth(View menu) {
+        if (menu == null || menu.getVisibility() == View.GONE) {
+            return 0;
+        }
+        LayoutParams lp = (LayoutParams) menu.getLayoutParams();
+        return menu.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
+    }
+
+    /**
+     * 快照策略下用快照代替主界面绘制。主界面不透明时，菜单只绘制没有被主界面遮住的部分，
+     * 完全被遮住的菜单不绘制
+     */
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        if (child == contentLayout) {
+            if (mSlideLayers.isDrawingSnapshot()) {
+                mSlideLayers.drawSnapshot(canvas, child);
+                return false;
+            }
+            return super.drawChild(canvas, child, drawingTime);
+        }
+        if (!isContentOpaque()) {
+            return super.drawChild(canvas, child, drawingTime);
+        }
+        float contentLeft = contentLayout.getLeft() + contentLayout.getTranslationX();
+        float contentRight = contentLayout.getRight() + contentLayout.getTranslationX();
+        float clipLeft = child.getLeft();
+        float clipRight = child.getRight();
+        if (child == leftMenuLayout) {
+            clipRight = Math.min(clipRight, contentLeft);
+        } else if (child == rightMenuLayout) {
+            clipLeft = Math.max(clipLeft, contentRight);
+        }
+        if (clipRight <= clipLeft) {
+            return false;
+        }
+        int saveCount = canvas.save();
+        canvas.clipRect(clipLeft, child.getTop(), clipRight, child.getBottom());
+        boolean more = super.drawChild(canvas, child, drawingTime);
+        canvas.restoreToCount(saveCount);
+        return more;
+    }
+
+    /**
+     * 在所有子布局之上按主界面当前的位置绘制遮罩和边缘阴影，不创建任何对象
+     */
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (!hasSlideDecor() || contentLayout == null || contentLayout.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        float offset = contentLayout.getTranslationX();
+        int menuWidth = offset > 0 ? mSlideCore.getLeftMenuWidth() : mSlideCore.getRightMenuWidth();
+        if (offset == 0 || menuWidth <= 0) {
+            return;
+        }
+        float fraction = Math.min(1f, Math.abs(offset) / menuWidth);
+        float contentLeft = contentLayout.getLeft() + offset;
+        float contentRight = contentLayout.getRight() + offset;
+        if ((mScrimColor >>> 24) != 0) {
+            int alpha = (int) ((mScrimColor >>> 24) * fraction);
+            mScrimPaint.setColor(alpha << 24 | (mScrimColor & 0xffffff));
+            canvas.drawRect(contentLeft, contentLayout.getTop(), contentRight, contentLayout.getBottom(),
+                    mScrimPaint);
+        }
+        if (mEdgeShadow != null) {
+            int shadowWidth = mEdgeShadowWidth >= 0 ? mEdgeShadowWidth : mEdgeShadow.getIntrinsicWidth();
+            int saveCount = canvas.save();
+            if (offset < 0) {
+                //右侧菜单露出时以主界面的右边缘为轴翻转，阴影落在右边缘的右侧
+                canvas.scale(-1f, 1f, (contentLeft + contentRight) / 2, 0f);
+            }
+            int edge = (int) contentLeft;
+            mEdgeShadow.setBounds(edge - shadowWidth, contentLayout.getTop(), edge, contentLayout.getBottom());
+            mEdgeShadow.setAlpha((int) (255 * fraction));
+            mEdgeShadow.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * 是否需要绘制遮罩或者边缘阴影，需要时主界面每次移动都要重绘本布局
+     */
+    private boolean hasSlideDecor() {
+        return mQualityLevel < QUALITY_REDUCED && ((mScrimColor >>> 24) != 0 || mEdgeShadow != null);
+    }
+
+    /**
+     * 主界面是否完全不透明，只有这时才能确定菜单被遮住的部分
+     */
+    private boolean isContentOpaque() {
+        return contentLayout != null && contentLayout.getVisibility() == View.VISIBLE
+                && contentLayout.getAlpha() == 1f
+                && contentLayout.isOpaque();
+    }
+
+    /**
+     * 按mSkipWindowBackground去掉或者恢复窗口背景，主界面不透明并且已经attach到窗口时才会去掉
+     */
+    private void updateWindowBackground() {
+        boolean skip = mSkipWindowBackground && getWindowToken() != null
+                && contentLayout != null && contentLayout.isOpaque();
+        if (!skip) {
+            restoreWindowBackground();
+        } else if (mWindowRoot == null && getRootView() != this) {
+            mWindowRoot = getRootView();
+            mRemovedWindowBackground = mWindowRoot.getBackground();
+            mWindowRoot.setBackground(null);
+        }
+    }
+
+    /**
+     * 恢复被去掉的窗口背景
+     */
+    private void restoreWindowBackground() {
+        if (mWindowRoot != null) {
+            mWindowRoot.setBackground(mRemovedWindowBackground);
+            mWindowRoot = null;
+            mRemovedWindowBackground = null;
+        }
+    }
+
+    /**
+     * 从窗口移除时结束正在进行的滑动，取消所有帧回调、延迟任务和后台加载的回调，
+     * 取消内存回调，归还VelocityTracker并回收复用的快照。之后没有任何回调引用本布局
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        abortSlide();
+        restoreWindowBackground();
+        super.onDetachedFromWindow();
+        getContext().getApplicationContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+        removeCallbacks(mEvictIdleMenusRunnable);
+        if (mLeftLazyMenu != null) {
+            mLeftLazyMenu.cancel();
+        }
+        if (mRightLazyMenu != null) {
+            mRightLazyMenu.cancel();
+        }
+        mSlideGesture.reset();
+        mNestedScrollAxes = 0;
+        mNestedSliding = false;
+        releaseVelocityTracker();
+        mSlideLayers.release();
+    }
+
+    /**
+     * 重新attach到窗口时恢复内存回调和窗口背景，移除期间加载完成的菜单在下一帧替换到布局中
+     */
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+        scheduleIdleMenuEviction();
+        updateWindowBackground();
+        if ((mLeftLazyMenu != null && mLeftLazyMenu.isLoaded())
+                || (mRightLazyMenu != null && mRightLazyMenu.isLoaded())) {
+            post(mAttachLoadedMenusRunnable);
+        }
+    }
+
+    /**
+     * 立即结束正在进行的滑动：滚动中直接跳到终点，拖动中按静止松手处理，
+     * 恢复绘制策略并回调统计数据和滚动结束监听器
+     */
+    private void abortSlide() {
+        SlideTicker.getInstance().remove(mDragFrame);
+        mOffsetPosted = false;
+        if (!mSlideCore.isSliding()) {
+            return;
+        }
+        int target = mContentAnimator.isRunning()
+                ? mContentAnimator.getTarget() : mSlideCore.getSettleTarget(0);
+        mContentAnimator.cancel();
+        mSlideCore.finishSlide(target);
+        applyContentOffset();
+        mSlideLayers.end();
+        dispatchSlideMetrics();
+        //主界面已经停在终点
+        dispatchScrollEnd(null, true);
+        runSettledActions();
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        if (p instanceof LayoutParams) {
+            return new LayoutParams((LayoutParams) p);
+        } else if (p instanceof MarginLayoutParams) {
+            return new LayoutParams((MarginLayoutParams) p);
+        }
+        return new LayoutParams(p);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        boolean handled = super.dispatchTouchEvent(event);
+        if (mGestureRecording != null) {
+            //在分发之后记录，手指抬起时记录的速度会排在ACTION_UP之前
+            recordTouchEvent(event);
+        }
+        return handled;
+    }
+
+    /**
+     * 在事件分发给子布局之前判断是否拦截。判定为横向滑动后拦截，子布局会收到ACTION_CANCEL；
+     * 菜单显示时点到主界面或者正在滚动时，从ACTION_DOWN开始拦截。
+     * 判定为纵向滑动或者从边缘区域之外开始的手势，直到下一次按下都不做任何处理。
+     * 子布局开始了横向的嵌套滚动时，距离通过嵌套滚动传递，本布局不再判断触摸事件
+     * @param event 触摸事件
+     * @return 需要由本布局处理时返回true
+     */
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        if (action != MotionEvent.ACTION_DOWN && (mSlideCore.isGestureIgnored() || mNestedScrollAxes != 0)) {
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                releaseVelocityTracker();
+            }
+            return false;
+        }
+        createVelocityTracker(event);
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                mSlideGesture.onDown(mGestureEvent.wrap(event));
+                return mSlideCore.isSliding()
+                        || mSlideCore.isTouchOnOpenedContent(mSlideCore.getDownX(), getWidth());
+            case MotionEvent.ACTION_MOVE:
+                onDragMove(event);
+                return mSlideCore.isSliding();
+            case MotionEvent.ACTION_POINTER_DOWN:
+                mSlideGesture.onPointerDown(mGestureEvent.wrap(event));
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                mSlideGesture.onPointerUp(mGestureEvent.wrap(event));
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                //手势被子布局处理完了，本布局没有参与
+                releaseVelocityTracker();
+                break;
+            default:
+                break;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        createVelocityTracker(event);
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mSlideGesture.onDown(mGestureEvent.wrap(event));
+                break;
+            case MotionEvent.ACTION_MOVE:
+                onDragMove(event);
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                mSlideGesture.onPointerDown(mGestureEvent.wrap(event));
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                mSlideGesture.onPointerUp(mGestureEvent.wrap(event));
+                break;
+            case MotionEvent.ACTION_UP:
+                mSlideGesture.onUp(mGestureEvent.wrap(event));
+                releaseVelocityTracker();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                mSlideGesture.onCancel();
+                releaseVelocityTracker();
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
 
     /**
-     * 滚动显示和隐藏左侧布局时，手指滑动需要达到的速度。
+     * 子布局开始嵌套滚动，只接受横向的滚动。菜单的加载和滑动状态的判断与触摸滑动一致。
+     * 嵌套滚动是API 21加入的，更低的版本上不会调用
      */
-    public static final int SNAP_VELOCITY = 200;
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return (nestedScrollAxes & View.SCROLL_AXIS_HORIZONTAL) != 0 && !mContentAnimator.isRunning();
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollAxes = axes;
+        mNestedSliding = false;
+        updateMenuPresence();
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollAxes;
+    }
 
     /**
-     * 滑动状态的一种，表示未进行任何滑动
+     * 主界面已经被嵌套滚动移动过时先由主界面消耗，直到菜单完全露出或者完全关闭，剩下的距离再交给子布局
      */
-    public static final int DO_NOTHING = 0;
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        if (mNestedSliding) {
+            //嵌套滚动的距离与手指移动方向相反
+            consumed[0] = -nestedSlideBy(-dx);
+        }
+    }
 
     /**
-     * 滑动状态的一种，表示正在滑出左侧菜单
+     * 子布局滚动到边界后剩下的距离用来移动主界面
      */
-    public static final int SHOW_LEFT_MENU = 1;
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        nestedSlideBy(-dxUnconsumed);
+    }
 
     /**
-     * 滑动状态的一种，表示正在滑出右侧菜单
+     * 主界面被嵌套滚动移动过时，由本布局按抛出的速度滚动到最终位置，子布局不再滚动
      */
-    public static final int SHOW_RIGHT_MENU = 2;
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        if (!mNestedSliding || !mSlideCore.isSliding() || mContentAnimator.isRunning()) {
+            return false;
+        }
+        onDragRelease(-velocityX);
+        return true;
+    }
 
     /**
-     * 滑动状态的一种，表示正在隐藏左侧菜单
+     * 子布局已经在边界上无法处理的横向抛出，按方向打开或者关闭菜单
      */
-    public static final int HIDE_LEFT_MENU = 3;
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        if (consumed || mNestedSliding || mSlideCore.isSliding()) {
+            return false;
+        }
+        return flingMenu(-velocityX);
+    }
 
     /**
-     * 滑动状态的一种，表示正在隐藏右侧菜单
+     * 嵌套滚动结束，主界面停在中间并且没有被抛出时按位置滚动到最终位置
      */
-    public static final int HIDE_RIGHT_MENU = 4;
-
-    private int slideState;
-    private int screenWidth;
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollAxes = 0;
+        if (mNestedSliding && mSlideCore.isSliding() && !mContentAnimator.isRunning()) {
+            onDragRelease(0);
+        }
+        mNestedSliding = false;
+    }
 
     /**
-     * 在判断为滚动之前手指可以移动的最大值
+     * 按嵌套滚动传来的距离移动主界面，第一次移动时与触摸滑动一样显示菜单并准备绘制策略。
+     * 嵌套滚动的距离本来就是按事件传来的，不再合并到下一帧
+     * @param dx 横向距离，与手指移动方向一致，向右为正
+     * @return 主界面实际移动的距离
      */
-    private int touchSlop;
+    private int nestedSlideBy(int dx) {
+        if (dx == 0 || mContentAnimator.isRunning()) {
+            return 0;
+        }
+        boolean wasSliding = mSlideCore.isSliding();
+        int moved = mSlideCore.scrollBy(dx);
+        if (!wasSliding && mSlideCore.isSliding()) {
+            beginSlideMetrics(System.nanoTime());
+            onSlideStarted(mSlideCore.getSlideState());
+            if (moved == 0) {
+                //以ViewStub声明的菜单刚刚加载，按加载后的宽度再移动一次
+                moved = mSlideCore.scrollBy(dx);
+            }
+        }
+        if (moved != 0) {
+            mNestedSliding = true;
+            //子布局通过dispatchNestedScroll的offsetInWindow得知自身在窗口中移动的距离并修正触摸坐标，
+            //主界面的偏移量必须立即生效，推迟到下一帧会让子布局把主界面的移动当成手指的反向移动
+            applyContentOffset();
+        }
+        return moved;
+    }
 
     /**
-     * 手指按下时的分类
+     * 按抛出的方向打开或者关闭菜单，速度低于snapVelocity时不处理
+     * @param velocity 横向速度，单位像素每秒，向右为正
+     * @return 开始滚动时返回true
      */
-    private float xDown;
-    private float yDown;
+    private boolean flingMenu(float velocity) {
+        if (Math.abs(velocity) <= mSlideCore.getSnapVelocity()) {
+            return false;
+        }
+        int offset = mSlideCore.getContentOffset();
+        if (velocity > 0) {
+            if (offset < 0) {
+                scrollToContentMenuFromRightMenu(velocity);
+                return true;
+            } else if (offset == 0 && mSlideCore.hasLeftMenu()) {
+                scrollToLeftMenu(velocity);
+                return true;
+            }
+        } else {
+            if (offset > 0) {
+                scrollToContentMenuFromLeftMenu(velocity);
+                return true;
+            } else if (offset == 0 && mSlideCore.hasRightMenu()) {
+                scrollToRightMenu(velocity);
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
-     * 手指移动时的坐标
+     * 手指移动，判断滑动状态并偏移主界面。批量事件中的历史点已经由VelocityTracker.addMovement计入速度
+     * @param event ACTION_MOVE事件
      */
-    private float xMove;
-    private float yMove;
+    private void onDragMove(MotionEvent event) {
+        beginTraceSection("BesideSlidingLayout#drag");
+        mSlideGesture.onMove(mGestureEvent.wrap(event));
+        endTraceSection();
+    }
+
     /**
-     * 手指抬起时的坐标
+     * 把触摸事件的所有手指记录到mGestureRecording中
+     * @param event 触摸事件
      */
-    private float xUp;
+    private void recordTouchEvent(MotionEvent event) {
+        int pointerCount = Math.min(event.getPointerCount(), GestureRecording.MAX_POINTERS);
+        for (int i = 0; i < pointerCount; i++) {
+            mRecordIds[i] = event.getPointerId(i);
+            mRecordX[i] = event.getX(i);
+            mRecordY[i] = event.getY(i);
+        }
+        mGestureRecording.record(event.getEventTime(), event.getActionMasked(), event.getActionIndex(),
+                pointerCount, mRecordIds, mRecordX, mRecordY);
+    }
 
-    private boolean isLeftMenuVisible;
-    private boolean isRightMenuVisible;
-    private boolean isSliding;
+    /**
+     * 手指离开时判断当前手势的意图，并以松手时的速度开始滚动
+     * @param velocity 松手时的速度，单位像素每秒
+     */
+    private void onDragRelease(float velocity) {
+        int state = mSlideCore.getSlideState();
+        if (state == DO_NOTHING) {
+            return;
+        }
+        mSlideMetrics.setReleaseVelocity(velocity);
+        int target = mSlideCore.getSettleTarget(velocity);
+        if (target > 0) {
+            scrollToLeftMenu(velocity);
+        } else if (target < 0) {
+            scrollToRightMenu(velocity);
+        } else if (state == SHOW_LEFT_MENU || state == HIDE_LEFT_MENU) {
+            scrollToContentMenuFromLeftMenu(velocity);
+        } else {
+            scrollToContentMenuFromRightMenu(velocity);
+        }
+    }
 
-    private View leftMenuLayout;
-    private View rightMenuLayout;
-    private View contentLayout;
+    /**
+     * 手势判定为滑动时，显示将要露出的菜单并准备绘制策略
+     * @param state 滑动状态
+     */
+    private void onSlideStarted(int state) {
+        switch (state) {
+            case SHOW_LEFT_MENU:
+                //如果想要显示左侧菜单，则将显示左侧菜单，隐藏右侧菜单
+                ensureMenuAttached(ROLE_LEFT_MENU);
+                showMenu(leftMenuLayout, rightMenuLayout);
+                startSliding(state, leftMenuLayout);
+                break;
+            case SHOW_RIGHT_MENU:
+                //如果想要显示右侧菜单，则将显示右侧菜单，隐藏左侧菜单
+                ensureMenuAttached(ROLE_RIGHT_MENU);
+                showMenu(rightMenuLayout, leftMenuLayout);
+                startSliding(state, rightMenuLayout);
+                break;
+            case HIDE_LEFT_MENU:
+                startSliding(state, leftMenuLayout);
+                break;
+            case HIDE_RIGHT_MENU:
+                startSliding(state, rightMenuLayout);
+                break;
+            default:
+                break;
+        }
+    }
 
     /**
-     * 用于监听滑动事件的View
+     * 显示即将露出的菜单并隐藏另一侧菜单。使用INVISIBLE而不是GONE，切换时不会触发重新布局。
+     * 还未加载的菜单保持ViewStub不变，改变ViewStub的可见性会在UI线程中直接加载
+     * @param shownMenu 需要显示的菜单
+     * @param hiddenMenu 需要隐藏的菜单
      */
-    private View mBindView;
+    private void showMenu(View shownMenu, View hiddenMenu) {
+        if (shownMenu != null && !(shownMenu instanceof ViewStub)) {
+            shownMenu.setVisibility(View.VISIBLE);
+        }
+        if (hiddenMenu != null && !(hiddenMenu instanceof ViewStub)) {
+            hiddenMenu.setVisibility(View.INVISIBLE);
+        }
+    }
 
-    private MarginLayoutParams leftMenuLayoutParams;
-    private MarginLayoutParams rightMenuLayoutParams;
-    private RelativeLayout.LayoutParams contentLayoutParams;
+    /**
+     * 以指定的初速度滚动到左侧菜单界面
+     * @param velocity 初速度，单位像素每秒
+     */
+    private void scrollToLeftMenu(float velocity) {
+        ensureMenuAttached(ROLE_LEFT_MENU);
+        if (isSettledAt(mSlideCore.getLeftMenuWidth())) {
+            return;
+        }
+        showMenu(leftMenuLayout, rightMenuLayout);
+        startSliding(SHOW_LEFT_MENU, leftMenuLayout);
+        animateContentTo(mSlideCore.getLeftMenuWidth(), velocity);
+    }
 
     /**
-     * 用于计算手指滑动的速度
+     * 以指定的初速度滚动到右侧菜单界面
+     * @param velocity 初速度，单位像素每秒
      */
-    private VelocityTracker mVelocityTracker;
+    private void scrollToRightMenu(float velocity) {
+        ensureMenuAttached(ROLE_RIGHT_MENU);
+        if (isSettledAt(-mSlideCore.getRightMenuWidth())) {
+            return;
+        }
+        showMenu(rightMenuLayout, leftMenuLayout);
+        startSliding(SHOW_RIGHT_MENU, rightMenuLayout);
+        animateContentTo(-mSlideCore.getRightMenuWidth(), velocity);
+    }
 
     /**
-     *
-     * @param context
-     * @param attrs
+     * 以指定的初速度从左侧菜单界面滚动到主界面
+     * @param velocity 初速度，单位像素每秒
      */
-    public BesideSlidingLayout(Context context, AttributeSet attrs) {
-        super(context, attrs);
-        WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        screenWidth = wm.getDefaultDisplay().getWidth();
-        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+    private void scrollToContentMenuFromLeftMenu(float velocity) {
+        if (isSettledAt(0)) {
+            return;
+        }
+        startSliding(HIDE_LEFT_MENU, leftMenuLayout);
+        animateContentTo(0, velocity);
     }
 
     /**
-     * 绑定监听滑动事件的view
-     * @param bindView
-     *          需要绑定的view对象
+     * 以指定的初速度从右侧菜单界面滚动到主界面
+     * @param velocity 初速度，单位像素每秒
      */
-    public void setScrollEvent(View bindView) {
-        mBindView = bindView;
-        mBindView.setOnTouchListener(this);
+    private void scrollToContentMenuFromRightMenu(float velocity) {
+        if (isSettledAt(0)) {
+            return;
+        }
+        startSliding(HIDE_RIGHT_MENU, rightMenuLayout);
+        animateContentTo(0, velocity);
     }
 
     /**
-     * 将界面滚动到左侧菜单界面，滚动速度为-30
+     * 进入滑动状态，并按绘制策略为主界面和露出的菜单准备硬件层或快照
+     * @param state 滑动状态，已经在滑动中时保持原来的状态
+     * @param revealedMenu 本次滑动中露出的菜单
      */
-    public void scrollToLeftMenu() {
-        new LeftMenuScrollTask().execute(-30);
+    private void startSliding(int state, View revealedMenu) {
+        removeCallbacks(mEvictIdleMenusRunnable);
+        beginSlideMetrics(System.nanoTime());
+        mSlideCore.beginSlide(state);
+        if (getParent() != null) {
+            //滑动过程中不让外层的滚动布局抢走事件
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        if (!mSlideLayers.isActive()) {
+            applyQualityLevel();
+        }
+        mSlideLayers.begin(contentLayout, revealedMenu);
     }
 
     /**
-     * 将界面滚动到右侧菜单界面，滚动速度为-30
+     * 从主界面当前的位置开始滚动到target
+     * @param target 主界面最终的偏移量
+     * @param velocity 初速度，单位像素每秒
      */
-    public void scrollToRightMenu() {
-        new RightMenuScrollTask().execute(-30);
+    private void animateContentTo(int target, float velocity) {
+        if (mContentAnimator.isRunning() && mContentAnimator.getTarget() == target) {
+            //已经在滚向同一个终点，连续调用不会重新开始动画
+            return;
+        }
+        mSlideMetrics.requestFrame(System.nanoTime());
+        mContentAnimator.start(mSlideCore.getContentOffset(), target, velocity);
     }
 
     /**
-     * 将界面从左侧菜单界面滚动到主界面，滚动速度为30
+     * 主界面已经静止在target时直接回调滚动结束，不做任何绘制上的准备
+     * @param target 主界面最终的偏移量
+     * @return 已经静止在target时返回true
      */
-    public void scrollToContentMenuFromLeftMenu() {
-        new LeftMenuScrollTask().execute(30);
+    private boolean isSettledAt(int target) {
+        if (mSlideCore.isSliding() || mSlideCore.getContentOffset() != target) {
+            return false;
+        }
+        dispatchScrollEnd(null, true);
+        return true;
     }
 
     /**
-     * 将界面从右侧菜单界面滚动到主界面，滚动速度为30
+     * 滑动停止后执行等待中的任务
      */
-    public void scrollToContentMenuFromRightMenu() {
-        new RightMenuScrollTask().execute(30);
+    private void runSettledActions() {
+        if (mSettledActions.isEmpty()) {
+            return;
+        }
+        ArrayList<Runnable> actions = mSettledActions;
+        mSettledActions = mRunningSettledActions;
+        mRunningSettledActions = actions;
+        for (int i = 0; i < actions.size(); i++) {
+            actions.get(i).run();
+        }
+        actions.clear();
     }
 
     /**
-     * 左侧菜单是否完全显示出来，滑动过程中此值无效
-     * @return 左侧菜单完全显示出来则返回true，否则返回false
+     * 结束当前的滚动监听器，并换成新的监听器
+     * @param next 新的监听器，可以为null
+     * @param finished 当前的滚动是否到达了终点，为false表示被手指或者新的滚动打断
      */
-    public boolean isLeftLayoutVisible() {
-        return isLeftMenuVisible;
+    private void dispatchScrollEnd(OnScrollEndListener next, boolean finished) {
+        OnScrollEndListener listener = mOnScrollEndListener;
+        mOnScrollEndListener = next;
+        if (listener != null) {
+            listener.onScrollEnd(finished);
+        }
     }
 
     /**
-     * 右侧菜单是否完全显示出来，滑动过程中此值无效
-     * @return 右侧菜单完全显示则返回true，否则返回false
+     * 拖动时在下一帧才把偏移量作用到主界面上，同一帧内的多次拖动只生效最后一次
+     * @param eventNanos 触摸事件的时间
      */
-    public boolean isRightLayoutVisible() {
-        return isRightMenuVisible;
+    private void postContentOffset(long eventNanos) {
+        if (!mOffsetPosted && mSlideCore.getContentOffset() != mAppliedOffset) {
+            mOffsetPosted = true;
+            mSlideMetrics.requestFrame(eventNanos);
+            SlideTicker.getInstance().add(mDragFrame);
+        }
     }
 
     /**
-     * 在onLayout中更新左侧菜单右侧菜单以及主界面布局的参数
-     * @param isChanged 界面是否变化
-     * @param l left
-     * @param t top
-     * @param r right
-     * @param b bottom
+     * 设置了监听器或者开启了自适应时开始统计本次滑动，已经在统计中时不做任何事
+     * @param inputNanos 触发滑动的输入事件的时间
      */
-    @Override
-    protected void onLayout(boolean isChanged, int l, int t, int r, int b) {
-        super.onLayout(isChanged, l, t, r, b);
-        if (isChanged) {
-            //获取左侧菜单布局对象,getChildAt(int i)获取此View的第i个布局，这里是BesideSlidingLayout的子布局
-            //getChildAt(int index)index取决布局的顺序
-            leftMenuLayout = this.getChildAt(0);
-            leftMenuLayoutParams = (MarginLayoutParams)leftMenuLayout.getLayoutParams();
-            //获取右侧菜单布局
-            rightMenuLayout = this.getChildAt(1);
-            rightMenuLayoutParams = (MarginLayoutParams)rightMenuLayout.getLayoutParams();
-            //获取主内容视图布局
-            contentLayout = this.getChildAt(2);
-            contentLayoutParams = (RelativeLayout.LayoutParams)contentLayout.getLayoutParams();
-            contentLayoutParams.width = screenWidth;
-            contentLayout.setLayoutParams(contentLayoutParams);
+    private void beginSlideMetrics(long inputNanos) {
+        if (mOnSlideMetricsListener != null || mAdaptiveQuality) {
+            mSlideMetrics.begin(inputNanos);
         }
     }
 
-    @Override
-    public boolean onTouch(View v, MotionEvent event) {
-        createVelocityTracker(event);
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                //手指按下 getRawX是相对于屏幕的位置坐标
-                xDown = event.getRawX();
-                yDown = event.getRawY();
-                //初始化滑动状态为无动作
-                slideState = DO_NOTHING;
-                break;
-            case MotionEvent.ACTION_MOVE:
-                xMove = event.getRawX();
-                yMove = event.getRawY();
-                //手指移动，计算移动的距离
-                int moveDisX = (int) (xMove - xDown);
-                int moveDisY = (int) (yMove - yDown);
-                //检查当前滑动状态
-                checkSlideState(moveDisX, moveDisY);
-                //根据当前滑动状态决定如何偏移内容布局
-                //TODO 显示时怎样变化的？？？
-                switch (slideState) {
-                    case SHOW_LEFT_MENU:
-                        contentLayoutParams.rightMargin = -moveDisX;
-                        checkLeftMenuBorder();
-                        contentLayout.setLayoutParams(contentLayoutParams);
-                        break;
-                    case SHOW_RIGHT_MENU:
-                        contentLayoutParams.leftMargin = moveDisX;
-                        checkRightMenuBorder();
-                        contentLayout.setLayoutParams(contentLayoutParams);
-                        break;
-                    case HIDE_LEFT_MENU:
-                        contentLayoutParams.rightMargin = -leftMenuLayoutParams.width - moveDisX;
-                        checkLeftMenuBorder();
-                        contentLayout.setLayoutParams(contentLayoutParams);
-                        break;
-                    case HIDE_RIGHT_MENU:
-                        contentLayoutParams.leftMargin = -rightMenuLayoutParams.width + moveDisX;
-                        checkRightMenuBorder();
-                        contentLayout.setLayoutParams(contentLayoutParams);
-                    default:
-                        break;
-                }
-                break;
-            case MotionEvent.ACTION_UP:
-                xUp = event.getRawX();
-                int upDisX = (int) (xUp - xDown);
-                if (isSliding) {
-                    //手指抬起时判断当前手势的意图
-                    switch (slideState) {
-                        case SHOW_LEFT_MENU:
-                            if (shouldScrollToLeftMenu()) {
-                                scrollToLeftMenu();
-                            } else {
-                                scrollToContentMenuFromLeftMenu();
-                            }
-                            break;
-                        case SHOW_RIGHT_MENU:
-                            if (shouldScrollToRightMenu()) {
-                                scrollToRightMenu();
-                            } else {
-                                scrollToContentMenuFromRightMenu();
-                            }
-                            break;
-                        case HIDE_LEFT_MENU:
-                            if (shouldScrollToContentFromLeftMenu()) {
-                                scrollToContentMenuFromLeftMenu();
-                            } else {
-                                scrollToLeftMenu();
-                            }
-                            break;
-                        case HIDE_RIGHT_MENU:
-                            if (shouldScrollToContentFromRightMenu()) {
-                                scrollToContentMenuFromRightMenu();
-                            } else {
-                                scrollToRightMenu();
-                            }
-                            break;
-                        default:
-                            break;
-                    }
-                } else if ((upDisX < touchSlop) && isLeftMenuVisible) {
-                    //当显示为左侧菜单时，点击一下主布局内容则直接滚动到主布局
-                    scrollToContentMenuFromLeftMenu();
-                } else if ((upDisX < touchSlop) && isRightMenuVisible) {
-                    //右侧
-                    scrollToContentMenuFromRightMenu();
-                }
-                recycleVelocityTracker();
-                break;
-            default:
-                break;
+    /**
+     * 滑动结束，把统计数据回调给监听器，并按本次滑动的掉帧情况调整效果等级
+     */
+    private void dispatchSlideMetrics() {
+        if (!mSlideMetrics.end(mSlideCore.getSlideState())) {
+            return;
         }
-        if(v.isEnabled()) {
-            if (isSliding) {
-                //正在滑动时让控件得不到焦点
-                unFocusBindView();
-                return true;
-            }
-            if (isLeftMenuVisible || isRightMenuVisible) {
-                //当左侧或右侧布局显示时，将绑定控件的事情屏蔽掉
-                return true;
+        if (mOnSlideMetricsListener != null) {
+            mOnSlideMetricsListener.onSlideMetrics(mSlideMetrics);
+        }
+        if (mAdaptiveQuality && AdaptiveQuality.onTransition(mSlideMetrics.getFrameCount(),
+                mSlideMetrics.getFramesOverBudget())) {
+            applyQualityLevel();
+            if (mOnQualityLevelChangeListener != null) {
+                mOnQualityLevelChangeListener.onQualityLevelChanged(mQualityLevel, mSlideMetrics);
             }
-            return false;
         }
-        return true;
     }
 
     /**
-     * 根据手指移动的距离判断当前滑动意图，然后赋值给slideState
-     * @param moveDisX 横向移动的距离
-     * @param moveDisY 纵向移动的距离
+     * 按会话的效果等级更新遮罩、绘制策略和回弹速度，只在没有滑动时调用
      */
-    private void checkSlideState(int moveDisX, int moveDisY) {
-        if( isLeftMenuVisible) {
-            if ( (!isSliding) && (Math.abs(moveDisX) >= touchSlop) && (moveDisX < 0)) {
-                isSliding = true;
-                slideState = HIDE_LEFT_MENU;
-            }
-        } else if ( isRightMenuVisible) {
-            if ( (!isSliding) && (Math.abs(moveDisX) >= touchSlop) && (moveDisX > 0)) {
-                isSliding = true;
-                slideState = HIDE_RIGHT_MENU;
-            }
-        } else {
-            if ( (!isSliding) && (Math.abs(moveDisX) >= touchSlop) && (moveDisX < 0) &&
-                    (Math.abs(moveDisY) < touchSlop)) {
-                isSliding = true;
-                slideState = SHOW_RIGHT_MENU;
-                contentLayoutParams.addRule(RelativeLayout.ALIGN_PARENT_RIGHT, 0);
-                contentLayoutParams.addRule(RelativeLayout.ALIGN_PARENT_LEFT);
-                contentLayout.setLayoutParams(contentLayoutParams);
-                //如果想要显示右侧菜单，则将显示右侧菜单，隐藏左侧菜单
-                rightMenuLayout.setVisibility(View.VISIBLE);
-                leftMenuLayout.setVisibility(View.GONE);
-            } else if ( (!isSliding) && (Math.abs(moveDisX) >= touchSlop) && (moveDisX > 0) &&
-                    (Math.abs(moveDisY) < touchSlop)) {
-                isSliding = true;
-                slideState = SHOW_LEFT_MENU;
-                contentLayoutParams.addRule(RelativeLayout.ALIGN_PARENT_RIGHT);
-                contentLayoutParams.addRule(RelativeLayout.ALIGN_PARENT_LEFT, 0);
-                contentLayout.setLayoutParams(contentLayoutParams);
-                //如果想要显示左侧菜单，则将显示左侧菜单，隐藏右侧菜单
-                leftMenuLayout.setVisibility(View.VISIBLE);
-                rightMenuLayout.setVisibility(View.GONE);
-            }
+    private void applyQualityLevel() {
+        int level = mAdaptiveQuality ? AdaptiveQuality.getLevel() : QUALITY_FULL;
+        if (level == mQualityLevel) {
+            return;
+        }
+        mQualityLevel = level;
+        mSlideLayers.setStrategy(getEffectiveLayerStrategy());
+        mContentAnimator.setFrequency(level >= QUALITY_MINIMAL
+                ? MINIMAL_QUALITY_SPRING_FREQUENCY : SlideSpring.SPRING_FREQUENCY);
+        invalidate();
+    }
+
+    /**
+     * 按效果等级实际使用的绘制策略
+     */
+    private int getEffectiveLayerStrategy() {
+        return mQualityLevel >= QUALITY_MINIMAL ? LAYER_STRATEGY_SNAPSHOT : mLayerStrategy;
+    }
+
+    /**
+     * 开始一段systrace区间，Trace需要API 18
+     * @param name 区间名称，使用常量字符串避免创建对象
+     */
+    private static void beginTraceSection(String name) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+        }
+    }
+
+    private static void endTraceSection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
         }
     }
 
     /**
-     * 让可获得焦点的控件在滑动时失去焦点
+     * 把状态机中的偏移量作用到主界面的translationX上
      */
-    private void unFocusBindView() {
-        if (mBindView != null) {
-            mBindView.setPressed(false);
-            mBindView.setFocusable(false);
-            mBindView.setFocusableInTouchMode(false);
+    private void applyContentOffset() {
+        int offset = mSlideCore.getContentOffset();
+        if (offset != mAppliedOffset && contentLayout != null) {
+            mAppliedOffset = offset;
+            contentLayout.setTranslationX(offset);
+            if (mSlideLayers.isDrawingSnapshot() || hasSlideDecor() || isContentOpaque()) {
+                //快照、遮罩和阴影是在本布局中绘制的，菜单的裁剪区域是在drawChild中按主界面的位置计算的。
+                //硬件加速时单独改变translationX只更新主界面自身的显示列表，需要重绘本布局才能跟随主界面移动
+                invalidate();
+            }
         }
     }
 
     /**
-     * 创建VelocityTracker对象，并将触摸事件添加到VelocityTracker
+     * 借出VelocityTracker对象，并将触摸事件添加到VelocityTracker，批量事件中的历史点也会一并计入
      * @param event
-     *          右侧布局监听控件的滑动事件
+     *          本布局收到的触摸事件
      */
     private void createVelocityTracker(MotionEvent event) {
         if (mVelocityTracker == null) {
-            mVelocityTracker = VelocityTracker.obtain();
+            mVelocityTracker = VelocityTrackerPool.acquire();
+        } else if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            //上一次手势的结束事件没有经过本布局
+            mVelocityTracker.clear();
         }
         mVelocityTracker.addMovement(event);
     }
 
     /**
      * 获取滑动速度
-     * @return 滑动速度，单位为每秒钟移动的像素值数
+     * @return 滑动速度，单位为每秒钟移动的像素值数，向右为正
      */
-    private int getScrollVelocity() {
-        mVelocityTracker.computeCurrentVelocity(1000);
-        int velocity = (int) mVelocityTracker.getXVelocity();
-        return Math.abs(velocity);
+    private float getScrollVelocity() {
+        mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+        return mVelocityTracker.getXVelocity(mSlideGesture.getActivePointerId());
     }
 
     /**
-     * 回收VelocityTracker对象
+     * 手势结束时把VelocityTracker归还给VelocityTrackerPool，留给下一次手势或者其他布局使用
      */
-    private void recycleVelocityTracker() {
-        mVelocityTracker.recycle();
-        mVelocityTracker = null;
+    private void releaseVelocityTracker() {
+        if (mVelocityTracker != null) {
+            VelocityTrackerPool.release(mVelocityTracker);
+            mVelocityTracker = null;
+        }
     }
 
     /**
-     * 判断是否应该显示左边菜单
-     * @return 如果手指移动距离大于左菜单的一半或者移动速度大于指定速度，则返回去true，否则false
+     * 代码调用的滚动结束的监听器
      */
-    private boolean shouldScrollToLeftMenu() {
-        if ( ((xUp - xDown) > (leftMenuLayoutParams.width / 2)) || (getScrollVelocity() > SNAP_VELOCITY)) {
-            return true;
-        } else {
-            return false;
-        }
+    public interface OnScrollEndListener {
+
+        /**
+         * 滚动结束时在UI线程中调用，每次调用scrollTo方法最多回调一次
+         * @param finished 到达终点时为true，被手指按住或者被新的scrollTo调用取代时为false
+         */
+        void onScrollEnd(boolean finished);
     }
 
     /**
-     * 判断是否应该显示右边菜单
-     * @return 如果手指移动距离大于右菜单的一半或者移动速度大于指定速度，则返回去true，否则false
+     * 以ViewStub声明的菜单加载完成的监听器
      */
-    private boolean shouldScrollToRightMenu() {
-        if ( ((xDown - xUp) > (rightMenuLayoutParams.width / 2)) || (getScrollVelocity() > SNAP_VELOCITY)) {
-            return true;
-        } else {
-            return false;
-        }
+    public interface OnMenuInflateListener {
+
+        /**
+         * 菜单替换到布局中之后在UI线程中调用
+         * @param menu 菜单的根布局
+         * @param role ROLE_LEFT_MENU或ROLE_RIGHT_MENU
+         */
+        void onMenuInflated(View menu, int role);
     }
 
     /**
-     * 判断是否应该从左边菜单滑动到主布局
-     * @return 如果手指移动距离大于左菜单的一半或者移动速度大于指定速度，则返回去true，否则false
+     * 以ViewStub声明的菜单被释放的监听器
      */
-    private boolean shouldScrollToContentFromLeftMenu() {
-        //注意不是up-down ？？？？
-        if ( ((xDown - xUp) > (leftMenuLayoutParams.width / 2)) || (getScrollVelocity() > SNAP_VELOCITY)) {
-            return true;
-        } else {
-            return false;
-        }
+    public interface OnMenuEvictListener {
+
+        /**
+         * 菜单换回ViewStub之前在UI线程中调用，带有id的控件的状态会自动保存，重新加载后恢复
+         * @param menu 即将被释放的菜单的根布局
+         * @param role ROLE_LEFT_MENU或ROLE_RIGHT_MENU
+         */
+        void onMenuEvicted(View menu, int role);
     }
 
     /**
-     * 判断是否应该从右边菜单滑动到主布局
-     * @return 如果手指移动距离大于右菜单的一半或者移动速度大于指定速度，则返回去true，否则false
+     * 滑动统计数据的监听器
      */
-    private boolean shouldScrollToContentFromRightMenu() {
-        if ( ((xUp - xDown) > (rightMenuLayoutParams.width / 2)) || (getScrollVelocity() > SNAP_VELOCITY)) {
-            return true;
-        } else {
-            return false;
-        }
+    public interface OnSlideMetricsListener {
+
+        /**
+         * 一次滑动结束时在UI线程中调用
+         * @param metrics 本次滑动的统计数据，回调返回后会被下一次滑动复用
+         */
+        void onSlideMetrics(SlideMetrics metrics);
     }
 
     /**
-     * 滑动过程中检查左侧菜单边界值，防止绑定布局滑出屏幕
+     * 效果等级变化的监听器，可以用来上报设备的等级，或者保存下来在下一次会话中通过setSessionQualityLevel直接使用
      */
-    private void checkLeftMenuBorder() {
-        if (contentLayoutParams.rightMargin > 0) {
-            contentLayoutParams.rightMargin = 0;
-        } else if (contentLayoutParams.rightMargin < -leftMenuLayoutParams.width) {
-            contentLayoutParams.rightMargin = -leftMenuLayoutParams.width;
-        }
+    public interface OnQualityLevelChangeListener {
+
+        /**
+         * 本布局的一次滑动结束后效果等级被降低时在UI线程中调用
+         * @param level 新的等级，QUALITY_REDUCED或QUALITY_MINIMAL
+         * @param metrics 导致降级的那次滑动的统计数据，回调返回后会被下一次滑动复用
+         */
+        void onQualityLevelChanged(int level, SlideMetrics metrics);
     }
 
     /**
-     * 检查右侧边界值防止滑出屏幕
+     * 保存的状态：露出的菜单以及主界面偏移量占该菜单宽度的比例，尺寸变化后恢复也能停在正确的位置
      */
-    private void checkRightMenuBorder() {
-        if (contentLayoutParams.leftMargin > 0) {
-            contentLayoutParams.leftMargin = 0;
-        } else if (contentLayoutParams.leftMargin < -rightMenuLayoutParams.width) {
-            contentLayoutParams.leftMargin = -rightMenuLayoutParams.width;
-        }
-    }
-
-    class LeftMenuScrollTask extends AsyncTask<Integer, Integer, Integer> {
+    static class SavedState extends BaseSavedState {
 
         /**
-         * 用于执行较为费时的后台操作，接收入参并返回计算结果，在执行过程中可以调用publishProgress来更新UI
-         * @param speed
-         * @return rightMargin
+         * 露出的菜单，ROLE_LEFT_MENU、ROLE_RIGHT_MENU，菜单都关闭时为ROLE_CONTENT
          */
+        int openMenu = ROLE_CONTENT;
+        float offsetFraction;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            openMenu = in.readInt();
+            offsetFraction = in.readFloat();
+        }
+
         @Override
-        protected Integer doInBackground(Integer... speed) {
-            int rightMargin = contentLayoutParams.rightMargin;
-            //根据传入的速度滚动界面，当滚动达到边界时跳出循环
-            while(true) {
-                rightMargin = rightMargin + speed[0];
-                if (rightMargin < -leftMenuLayoutParams.width) {
-                    rightMargin = -leftMenuLayoutParams.width;
-                    break;
-                }
-                if (rightMargin > 0) {
-                    rightMargin = 0;
-                    break;
-                }
-                publishProgress(rightMargin);
-                //为了看到滚动效果，每次循环线程睡眠一段时间，才能让肉眼可见动画
-                try {
-                    Thread.sleep(15);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(openMenu);
+            out.writeFloat(offsetFraction);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
             }
-            if (speed[0] > 0) {
-                isLeftMenuVisible = false;
-            } else {
-                isLeftMenuVisible = true;
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
             }
-            isSliding = false;
-            return rightMargin;
+        };
+    }
+
+    /**
+     * 让SlideGesture读取MotionEvent，不复制事件的数据。
+     * getX是相对于本布局的坐标，本布局自身不会移动
+     */
+    private static final class MotionEventSource implements SlideGesture.Event {
+
+        private MotionEvent mEvent;
+
+        SlideGesture.Event wrap(MotionEvent event) {
+            mEvent = event;
+            return this;
         }
 
-        /**
-         * 在调用publishProgress时会执行此方法，将进度信息直接更新到UI组件上
-         * @param rightMargin
-         */
         @Override
-        protected void onProgressUpdate(Integer... rightMargin) {
-            contentLayoutParams.rightMargin = rightMargin[0];
-            contentLayout.setLayoutParams(contentLayoutParams);
-            unFocusBindView();
+        public int getPointerCount() {
+            return mEvent.getPointerCount();
+        }
+
+        @Override
+        public int getActionIndex() {
+            return mEvent.getActionIndex();
+        }
+
+        @Override
+        public int getPointerId(int index) {
+            return mEvent.getPointerId(index);
+        }
+
+        @Override
+        public int findPointerIndex(int pointerId) {
+            return mEvent.findPointerIndex(pointerId);
         }
 
-        /**
-         * 当后台操作完成后此方法将会被调用，计算结果会作为入参会直接显示到UI组件里
-         * @param rightMargin
-         *          入参即是doInBackground的返回值
-         */
         @Override
-        protected void onPostExecute(Integer rightMargin) {
-            contentLayoutParams.rightMargin = rightMargin;
-            contentLayout.setLayoutParams(contentLayoutParams);
+        public float getX(int index) {
+            return mEvent.getX(index);
+        }
+
+        @Override
+        public float getY(int index) {
+            return mEvent.getY(index);
+        }
+
+        @Override
+        public long getEventTime() {
+            return mEvent.getEventTime();
         }
     }
 
     /**
-     *
-     * execute(Params... params)
-     * AsyncTask<Params, Progress, Result>
-     *     doInBackground(Params... params)
-     *     onProgressUpdate(Progress)
-     *     publishProgress(Progress)
-     *     onPostExecute(Result)
+     * BesideSlidingLayout的布局参数，通过layout_slideRole声明子布局的角色
      */
-    class RightMenuScrollTask extends AsyncTask<Integer, Integer, Integer> {
+    public static class LayoutParams extends MarginLayoutParams {
 
         /**
-         * 用于执行较为费时的后台操作，接收入参并返回计算结果，在执行过程中可以调用publishProgress来更新UI
-         * @param speed
-         * @return leftMargin
+         * 子布局的角色，取值为ROLE_CONTENT、ROLE_LEFT_MENU或ROLE_RIGHT_MENU
          */
-        @Override
-        protected Integer doInBackground(Integer... speed) {
-            int leftMargin = contentLayoutParams.leftMargin;
-            //根据传入的速度滚动界面，当滚动达到边界时跳出循环
-            while(true) {
-                //每次向左偏离屏幕右边缘30
-                leftMargin = leftMargin + speed[0];
-                if (leftMargin < -rightMenuLayoutParams.width) {
-                    leftMargin = -rightMenuLayoutParams.width;
-                    break;
-                }
-                if (leftMargin > 0) {
-                    leftMargin = 0;
-                    break;
-                }
-                publishProgress(leftMargin);
-                //为了看到滚动效果，每次循环线程睡眠一段时间，才能让肉眼可见动画
-                try {
-                    Thread.sleep(15);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-            if (speed[0] > 0) {
-                isRightMenuVisible = false;
-            } else {
-                isRightMenuVisible = true;
-            }
-            isSliding = false;
-            return leftMargin;
+        public int role = ROLE_CONTENT;
+
+        public LayoutParams(Context c, AttributeSet attrs) {
+            super(c, attrs);
+            TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.BesideSlidingLayout_Layout);
+            role = a.getInt(R.styleable.BesideSlidingLayout_Layout_layout_slideRole, ROLE_CONTENT);
+            a.recycle();
         }
 
-        /**
-         * 在调用publishProgress时会执行此方法，将进度信息直接更新到UI组件上
-         * @param leftMargin
-         */
-        @Override
-        protected void onProgressUpdate(Integer... leftMargin) {
-            contentLayoutParams.leftMargin = leftMargin[0];
-            contentLayout.setLayoutParams(contentLayoutParams);
-            unFocusBindView();
+        public LayoutParams(int width, int height) {
+            super(width, height);
         }
 
-        /**
-         * 当后台操作完成后此方法将会被调用，计算结果会作为入参会直接显示到UI组件里
-         * @param leftMargin
-         *          入参即是doInBackground的返回值
-         */
-        @Override
-        protected void onPostExecute(Integer leftMargin) {
-            contentLayoutParams.leftMargin = leftMargin;
-            contentLayout.setLayoutParams(contentLayoutParams);
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(MarginLayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(LayoutParams source) {
+            super(source);
+            role = source.role;
         }
     }
 }
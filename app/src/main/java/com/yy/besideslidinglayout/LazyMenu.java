@@ -0,0 +1,185 @@
+package com.yy.besideslidinglayout;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcelable;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 以ViewStub声明的菜单，可以提前在后台线程中加载，需要显示时再在UI线程中替换掉ViewStub。
+ * 后台加载还未完成时在UI线程中取结果会等待加载完成，还未开始时直接在UI线程中加载。
+ * 内存紧张时菜单可以换回ViewStub释放掉，释放前保存的控件状态在下一次加载后恢复
+ */
+class LazyMenu implements Callable<View> {
+
+    /**
+     * 后台加载完成后通过主线程的Handler切换回UI线程。布局从窗口移除时View.post会把任务
+     * 放进当前线程的队列，在线程池的线程中调用会让布局一直被该线程引用
+     */
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final ViewStub mStub;
+    private final ViewGroup mParent;
+    private final Runnable mOnLoaded;
+    private FutureTask<View> mTask;
+
+    /**
+     * 当前替换到布局中的菜单，还是ViewStub时为null
+     */
+    private View mAttachedMenu;
+
+    /**
+     * 菜单被释放前保存的控件状态
+     */
+    private SparseArray<Parcelable> mSavedState;
+
+    /**
+     * @param stub 菜单的占位
+     * @param parent 菜单所在的布局，用于生成布局参数
+     * @param onLoaded 后台加载完成后在UI线程中执行
+     */
+    LazyMenu(ViewStub stub, ViewGroup parent, Runnable onLoaded) {
+        mStub = stub;
+        mParent = parent;
+        mOnLoaded = onLoaded;
+    }
+
+    ViewStub getStub() {
+        return mStub;
+    }
+
+    /**
+     * 是否已经加载完成，可以不等待直接获取
+     */
+    boolean isLoaded() {
+        return mTask != null && mTask.isDone();
+    }
+
+    View getAttachedMenu() {
+        return mAttachedMenu;
+    }
+
+    void setAttachedMenu(View menu) {
+        mAttachedMenu = menu;
+    }
+
+    /**
+     * 保存菜单中控件的状态并丢弃加载结果，之后需要重新加载
+     * @param menu 即将被释放的菜单
+     */
+    void evict(View menu) {
+        mSavedState = new SparseArray<Parcelable>();
+        menu.saveHierarchyState(mSavedState);
+        mAttachedMenu = null;
+        mTask = null;
+    }
+
+    /**
+     * 把释放前保存的状态恢复到重新加载的菜单中
+     * @param menu 重新加载的菜单
+     */
+    void restoreState(View menu) {
+        if (mSavedState != null) {
+            menu.restoreHierarchyState(mSavedState);
+            mSavedState = null;
+        }
+    }
+
+    /**
+     * 在后台线程中开始加载，已经开始过时不做任何事
+     */
+    void prewarm() {
+        prewarm(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * 在executor中开始加载，已经开始过时不做任何事
+     * @param executor 执行加载的线程池
+     */
+    void prewarm(Executor executor) {
+        if (mTask == null) {
+            mTask = new LoadTask();
+            executor.execute(mTask);
+        }
+    }
+
+    /**
+     * 布局从窗口移除时调用，取消还没有开始的后台加载以及还没有执行的加载完成回调，
+     * 已经加载完成的结果保留，下一次prewarm或者get时直接使用
+     */
+    void cancel() {
+        MAIN_HANDLER.removeCallbacks(mOnLoaded);
+        if (mTask != null && !mTask.isDone()) {
+            //正在加载的任务无法中断，加载完成后的回调会因为结果被丢弃而不做任何事
+            mTask.cancel(false);
+            mTask = null;
+        }
+    }
+
+    /**
+     * 获取加载好的菜单，只能在UI线程中调用
+     * @return 菜单的根布局
+     */
+    View get() {
+        if (mTask == null) {
+            mTask = new LoadTask();
+            mTask.run();
+        }
+        try {
+            return mTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while inflating menu", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("failed to inflate menu", cause);
+        }
+    }
+
+    @Override
+    public View call() {
+        LayoutInflater inflater = mStub.getLayoutInflater() != null
+                ? mStub.getLayoutInflater() : LayoutInflater.from(mStub.getContext());
+        View menu = inflater.inflate(mStub.getLayoutResource(), mParent, false);
+        if (mStub.getInflatedId() != View.NO_ID) {
+            menu.setId(mStub.getInflatedId());
+        }
+        //菜单在滑动开始之前保持隐藏
+        menu.setVisibility(View.INVISIBLE);
+        return menu;
+    }
+
+    /**
+     * 加载任务，结果保存之后才通知UI线程。在call中通知的话，UI线程可能在结果保存之前就执行回调，
+     * 此时isLoaded仍然为false，菜单不会被替换到布局中，之后也不会再收到通知
+     */
+    private class LoadTask extends FutureTask<View> {
+
+        LoadTask() {
+            super(LazyMenu.this);
+        }
+
+        @Override
+        protected void done() {
+            if (!isCancelled()) {
+                MAIN_HANDLER.post(mOnLoaded);
+            }
+        }
+    }
+}
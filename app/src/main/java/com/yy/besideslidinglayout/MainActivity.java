@@ -2,11 +2,13 @@ package com.yy.besideslidinglayout;
 
 import android.os.Bundle;
 import android.support.v7.app.ActionBarActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
 import android.view.View;
-import android.widget.ArrayAdapter;
+import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.EditText;
-import android.widget.ListView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
@@ -18,11 +20,29 @@ public class MainActivity extends ActionBarActivity {
     private Button rightBtn;
     private TextView leftText;
     private EditText rightEdit;
-    private ListView contentList;
+    private RecyclerView contentList;
     private BesideSlidingLayout besideSlidingLayout;
-    private ArrayAdapter<String> contentListAdapter;
+    private ContentAdapter contentListAdapter;
     private ArrayList<String> contentItems = new ArrayList<String>();
 
+    /**
+     * 滑动过程中添加的条目，等主界面停止移动后一次性插入列表
+     */
+    private ArrayList<String> pendingItems = new ArrayList<String>();
+
+    private final Runnable insertPendingItems = new Runnable() {
+        @Override
+        public void run() {
+            if (pendingItems.isEmpty()) {
+                return;
+            }
+            int start = contentItems.size();
+            contentItems.addAll(pendingItems);
+            contentListAdapter.notifyItemRangeInserted(start, pendingItems.size());
+            pendingItems.clear();
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -30,20 +50,44 @@ public class MainActivity extends ActionBarActivity {
         initView();
 
         besideSlidingLayout = (BesideSlidingLayout) findViewById(R.id.bidir_slide_layout);
-        contentList = (ListView) findViewById(R.id.contentList);
-        contentListAdapter = new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1,
-                contentItems);
+        //菜单以ViewStub声明，加载完成后再绑定其中的控件
+        besideSlidingLayout.setOnMenuInflateListener(new BesideSlidingLayout.OnMenuInflateListener() {
+            @Override
+            public void onMenuInflated(View menu, int role) {
+                if (role == BesideSlidingLayout.ROLE_LEFT_MENU) {
+                    initLeftMenu(menu);
+                } else {
+                    initRightMenu(menu);
+                }
+            }
+        });
+        //菜单关闭一段时间或者内存紧张时会被释放，释放后不再持有其中的控件
+        besideSlidingLayout.setOnMenuEvictListener(new BesideSlidingLayout.OnMenuEvictListener() {
+            @Override
+            public void onMenuEvicted(View menu, int role) {
+                if (role == BesideSlidingLayout.ROLE_LEFT_MENU) {
+                    leftBtn = null;
+                    leftText = null;
+                } else {
+                    rightBtn = null;
+                    rightEdit = null;
+                }
+            }
+        });
+        contentList = (RecyclerView) findViewById(R.id.contentList);
+        contentList.setLayoutManager(new LinearLayoutManager(this));
+        contentListAdapter = new ContentAdapter(contentItems);
         contentList.setAdapter(contentListAdapter);
-        besideSlidingLayout.setScrollEvent(contentList);
     }
 
     private void addItem() {
         String rightText = rightEdit.getText().toString();
         if (!rightText.equals("")) {
-        contentItems.add(rightText);
-        contentListAdapter.notifyDataSetChanged();
+        pendingItems.add(rightText);
         rightEdit.setText("");
         besideSlidingLayout.scrollToContentMenuFromRightMenu();
+        //插入条目会让列表重新布局，等关闭菜单的滚动结束后再插入，避免滚动刚开始时卡顿
+        besideSlidingLayout.runWhenSettled(insertPendingItems);
         }
     }
 
@@ -53,26 +97,69 @@ public class MainActivity extends ActionBarActivity {
 
     private void initView() {
         String[] initString = {"a", "v", "b", "sd", "a", "v", "b", "sd","a", "v", "b", "sd"};
-        rightBtn = (Button) findViewById(R.id.right_btn);
-        leftBtn = (Button) findViewById(R.id.left_btn);
-        rightEdit = (EditText) findViewById(R.id.right_edit);
-        leftText = (TextView) findViewById(R.id.left_text);
+        for(int i = 0; i < initString.length; i++) {
+         contentItems.add(initString[i]);
+        }
+    }
 
-        rightBtn.setOnClickListener(new View.OnClickListener() {
+    private void initLeftMenu(View menu) {
+        leftBtn = (Button) menu.findViewById(R.id.left_btn);
+        leftText = (TextView) menu.findViewById(R.id.left_text);
+        leftBtn.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                addItem();
+                changeLeftText();
             }
         });
-        leftBtn.setOnClickListener(new View.OnClickListener() {
+    }
+
+    private void initRightMenu(View menu) {
+        rightBtn = (Button) menu.findViewById(R.id.right_btn);
+        rightEdit = (EditText) menu.findViewById(R.id.right_edit);
+        rightBtn.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                changeLeftText();
+                addItem();
             }
         });
+    }
 
-        for(int i = 0; i < initString.length; i++) {
-         contentItems.add(initString[i]);
+    /**
+     * 主界面列表的适配器，每个条目显示一行文字
+     */
+    private static class ContentAdapter extends RecyclerView.Adapter<ContentAdapter.ViewHolder> {
+
+        private final ArrayList<String> items;
+
+        ContentAdapter(ArrayList<String> items) {
+            this.items = items;
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(android.R.layout.simple_list_item_1, parent, false);
+            return new ViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            holder.text.setText(items.get(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return items.size();
+        }
+
+        static class ViewHolder extends RecyclerView.ViewHolder {
+
+            final TextView text;
+
+            ViewHolder(View itemView) {
+                super(itemView);
+                text = (TextView) itemView.findViewById(android.R.id.text1);
+            }
         }
     }
 }
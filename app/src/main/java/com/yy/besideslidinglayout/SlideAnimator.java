@@ -0,0 +1,104 @@
+package com.yy.besideslidinglayout;
+
+import com.yy.besideslidinglayout.core.FrameTicker;
+import com.yy.besideslidinglayout.core.SlideSpring;
+
+/**
+ * 由Choreographer帧回调驱动的滑动动画，在UI线程中按每帧的时间戳计算当前位置，
+ * 因此动画效果与屏幕刷新率无关。位置的计算由SlideSpring完成。
+ * 所有实例共享SlideTicker的同一个帧回调
+ */
+class SlideAnimator implements FrameTicker.Client {
+
+    /**
+     * 动画进度回调，均在UI线程中执行
+     */
+    interface Callback {
+
+        /**
+         * 每一帧计算出新的位置后调用
+         * @param value 当前位置
+         * @param frameTimeNanos 本帧的帧时间
+         */
+        void onAnimationUpdate(int value, long frameTimeNanos);
+
+        /**
+         * 动画到达终点时调用
+         * @param value 终点位置
+         * @param frameTimeNanos 到达终点的帧的帧时间，start时已经静止在终点、没有经过任何一帧时为0
+         */
+        void onAnimationEnd(int value, long frameTimeNanos);
+    }
+
+    private final SlideSpring mSpring = new SlideSpring();
+    private final Callback mCallback;
+
+    SlideAnimator(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * 从from滑动到to
+     * @param from 起始位置
+     * @param to 终点位置
+     * @param velocity 起始速度，单位像素每秒，方向与位置的坐标方向一致
+     */
+    void start(int from, int to, float velocity) {
+        cancel();
+        if (mSpring.start(from, to, velocity)) {
+            SlideTicker.getInstance().add(this);
+        } else {
+            mCallback.onAnimationEnd(to, 0);
+        }
+    }
+
+    /**
+     * 取消正在执行的动画，停在当前位置，不会回调onAnimationEnd
+     */
+    void cancel() {
+        if (mSpring.isRunning()) {
+            mSpring.cancel();
+            SlideTicker.getInstance().remove(this);
+        }
+    }
+
+    /**
+     * 设置弹簧的角频率，频率越高回弹越快，从下一次start开始生效
+     * @param frequency 角频率，单位rad/s
+     */
+    void setFrequency(float frequency) {
+        mSpring.setFrequency(frequency);
+    }
+
+    boolean isRunning() {
+        return mSpring.isRunning();
+    }
+
+    /**
+     * 当前速度，单位像素每秒，没有动画时为0
+     */
+    float getVelocity() {
+        return mSpring.getVelocity();
+    }
+
+    /**
+     * 正在进行的动画的终点位置
+     */
+    int getTarget() {
+        return mSpring.getTarget();
+    }
+
+    @Override
+    public boolean onFrame(long frameTimeNanos) {
+        if (!mSpring.isRunning()) {
+            return false;
+        }
+        if (mSpring.computeOffset(frameTimeNanos)) {
+            mCallback.onAnimationUpdate(mSpring.getValue(), frameTimeNanos);
+            return true;
+        }
+        mCallback.onAnimationEnd(mSpring.getValue(), frameTimeNanos);
+        //结束回调中可能开始了新的动画
+        return mSpring.isRunning();
+    }
+}
@@ -0,0 +1,162 @@
+package com.yy.besideslidinglayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+
+/**
+ * 滑动过程中主界面和菜单的绘制策略。滑动开始时为主界面和露出的菜单开启硬件层，
+ * 或者把主界面绘制成一张快照，滑动结束后自动恢复。快照的Bitmap在多次滑动之间复用，
+ * 尺寸不变时不会重新分配，调用release才会回收
+ */
+class SlideLayers {
+
+    private int mStrategy = BesideSlidingLayout.LAYER_STRATEGY_HARDWARE;
+
+    private boolean mActive;
+
+    /**
+     * 本次滑动中开启了硬件层的主界面和菜单，以及它们原来的layerType
+     */
+    private View mContent;
+    private View mMenu;
+    private int mContentLayerType;
+    private int mMenuLayerType;
+
+    /**
+     * 主界面的快照以及绘制快照用的Canvas，仅在LAYER_STRATEGY_SNAPSHOT下使用
+     */
+    private Bitmap mSnapshot;
+    private Canvas mSnapshotCanvas;
+
+    /**
+     * 本次滑动是否在用快照代替主界面绘制
+     */
+    private boolean mDrawingSnapshot;
+
+    void setStrategy(int strategy) {
+        if (mStrategy != strategy) {
+            end();
+            release();
+            mStrategy = strategy;
+        }
+    }
+
+    int getStrategy() {
+        return mStrategy;
+    }
+
+    boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * 是否正在用快照代替主界面绘制
+     */
+    boolean isDrawingSnapshot() {
+        return mDrawingSnapshot;
+    }
+
+    /**
+     * 滑动开始时调用，一次滑动中重复调用只有第一次生效
+     * @param content 主界面
+     * @param menu 即将露出的菜单，可以为null
+     */
+    void begin(View content, View menu) {
+        if (mActive || content == null) {
+            return;
+        }
+        mActive = true;
+        switch (mStrategy) {
+            case BesideSlidingLayout.LAYER_STRATEGY_HARDWARE:
+                mContent = content;
+                mContentLayerType = enableHardwareLayer(content);
+                if (menu != null) {
+                    mMenu = menu;
+                    mMenuLayerType = enableHardwareLayer(menu);
+                }
+                break;
+            case BesideSlidingLayout.LAYER_STRATEGY_SNAPSHOT:
+                mDrawingSnapshot = captureSnapshot(content);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 滑动结束时调用，恢复原来的layerType并停止绘制快照，快照的Bitmap保留给下一次滑动
+     */
+    void end() {
+        if (!mActive) {
+            return;
+        }
+        mActive = false;
+        if (mContent != null) {
+            mContent.setLayerType(mContentLayerType, null);
+            mContent = null;
+        }
+        if (mMenu != null) {
+            mMenu.setLayerType(mMenuLayerType, null);
+            mMenu = null;
+        }
+        mDrawingSnapshot = false;
+    }
+
+    /**
+     * 回收复用的快照，不在滑动中时调用
+     */
+    void release() {
+        if (mSnapshot != null && !mActive) {
+            mSnapshot.recycle();
+            mSnapshot = null;
+            mSnapshotCanvas = null;
+        }
+    }
+
+    /**
+     * 用快照代替主界面绘制，快照跟随主界面的translationX移动
+     * @param canvas 父布局的画布
+     * @param content 主界面
+     */
+    void drawSnapshot(Canvas canvas, View content) {
+        canvas.drawBitmap(mSnapshot, content.getLeft() + content.getTranslationX(),
+                content.getTop(), null);
+    }
+
+    private int enableHardwareLayer(View view) {
+        int oldLayerType = view.getLayerType();
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        if (view.getWindowToken() != null && view.isHardwareAccelerated()) {
+            //提前生成硬件层，避免第一帧滑动时才去绘制
+            view.buildLayer();
+        }
+        return oldLayerType;
+    }
+
+    /**
+     * 把主界面绘制到快照中，尺寸和格式与上一次相同时复用原来的Bitmap
+     * @return 成功生成快照时返回true
+     */
+    private boolean captureSnapshot(View content) {
+        int width = content.getWidth();
+        int height = content.getHeight();
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        Bitmap.Config config = content.isOpaque() ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        if (mSnapshot == null || mSnapshot.getWidth() != width || mSnapshot.getHeight() != height
+                || mSnapshot.getConfig() != config) {
+            if (mSnapshot != null) {
+                mSnapshot.recycle();
+            }
+            mSnapshot = Bitmap.createBitmap(width, height, config);
+            mSnapshotCanvas = new Canvas(mSnapshot);
+        } else if (config == Bitmap.Config.ARGB_8888) {
+            mSnapshot.eraseColor(Color.TRANSPARENT);
+        }
+        content.draw(mSnapshotCanvas);
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+package com.yy.besideslidinglayout;
+
+/**
+ * 一次菜单滑动（从手势判定为滑动或者调用scrollTo方法开始，到主界面停止为止）的统计数据。
+ * 同一个BesideSlidingLayout的每次滑动复用同一个对象，只在回调期间有效，需要保留时请复制其中的数值
+ */
+public class SlideMetrics {
+
+    /**
+     * 与上一帧的帧时间相差超过帧间隔的1.5倍才算作掉帧，允许帧时间有少量抖动
+     */
+    private static final float OVER_BUDGET_RATIO = 1.5f;
+
+    private long mFrameIntervalNanos = 16666667L;
+
+    private boolean mTracking;
+    private int mDirection;
+    private long mStartNanos;
+    private long mInputNanos;
+    private long mEndNanos;
+    private long mFirstMoveNanos;
+
+    /**
+     * 上一帧的帧时间，为0表示接下来的一帧与之前的帧不连续，不参与掉帧判断
+     */
+    private long mLastFrameNanos;
+
+    /**
+     * 上一帧之后是否已经请求了下一帧
+     */
+    private boolean mFrameRequested;
+    private int mFrameCount;
+    private int mFramesOverBudget;
+    private int mLayoutCount;
+    private float mReleaseVelocity;
+
+    /**
+     * 滑动方向，BesideSlidingLayout.SHOW_LEFT_MENU、SHOW_RIGHT_MENU、HIDE_LEFT_MENU或HIDE_RIGHT_MENU
+     */
+    public int getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * 从滑动开始到主界面停止的时长，单位毫秒
+     */
+    public long getDurationMillis() {
+        return (mEndNanos - mStartNanos) / 1000000L;
+    }
+
+    /**
+     * 滑动过程中更新主界面位置的帧数
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * 与上一帧的帧时间相差超过1.5个帧间隔的帧数，即前面至少有一次垂直同步没有画出新的一帧。
+     * 手指停住等没有请求下一帧的间隔不计算在内
+     */
+    public int getFramesOverBudget() {
+        return mFramesOverBudget;
+    }
+
+    /**
+     * 滑动过程中本布局执行layout的次数，正常情况下应该为0
+     */
+    public int getLayoutCount() {
+        return mLayoutCount;
+    }
+
+    /**
+     * 从触发滑动的触摸事件（或者调用scrollTo方法）到主界面第一次移动的时间，单位毫秒
+     */
+    public long getTouchToFirstMoveMillis() {
+        return mFirstMoveNanos == 0 ? 0 : (mFirstMoveNanos - mInputNanos) / 1000000L;
+    }
+
+    /**
+     * 松手时的速度，单位像素每秒，向右为正，不是由手势触发的滑动为0
+     */
+    public float getReleaseVelocity() {
+        return mReleaseVelocity;
+    }
+
+    /**
+     * 按屏幕刷新率设置帧间隔
+     * @param refreshRate 刷新率，单位Hz
+     */
+    void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            mFrameIntervalNanos = (long) (1000000000L / refreshRate);
+        }
+    }
+
+    boolean isTracking() {
+        return mTracking;
+    }
+
+    /**
+     * 滑动开始时调用，已经在统计中时保留原来的数据
+     * @param inputNanos 触发滑动的输入事件的时间，与System.nanoTime使用同一个时钟
+     */
+    void begin(long inputNanos) {
+        if (mTracking) {
+            return;
+        }
+        mTracking = true;
+        mStartNanos = System.nanoTime();
+        mInputNanos = inputNanos;
+        mFirstMoveNanos = 0;
+        mLastFrameNanos = 0;
+        mFrameRequested = false;
+        mFrameCount = 0;
+        mFramesOverBudget = 0;
+        mLayoutCount = 0;
+        mReleaseVelocity = 0;
+    }
+
+    /**
+     * 请求了下一帧。距离上一帧已经超过一个帧间隔时，中间的垂直同步本来就没有需要画的内容，
+     * 接下来的一帧与上一帧不连续
+     * @param requestNanos 请求的时间，拖动时为触摸事件的时间，与System.nanoTime使用同一个时钟
+     */
+    void requestFrame(long requestNanos) {
+        if (!mTracking || mFrameRequested) {
+            return;
+        }
+        mFrameRequested = true;
+        if (mLastFrameNanos != 0 && requestNanos - mLastFrameNanos > mFrameIntervalNanos) {
+            mLastFrameNanos = 0;
+        }
+    }
+
+    /**
+     * 主界面的位置在一帧中更新了，与上一帧的帧时间相差超过1.5个帧间隔时记为掉帧
+     * @param frameTimeNanos Choreographer的帧时间
+     */
+    void onFrame(long frameTimeNanos) {
+        if (!mTracking) {
+            return;
+        }
+        if (mFirstMoveNanos == 0) {
+            mFirstMoveNanos = System.nanoTime();
+        }
+        if (mLastFrameNanos != 0
+                && frameTimeNanos - mLastFrameNanos > mFrameIntervalNanos * OVER_BUDGET_RATIO) {
+            mFramesOverBudget++;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        mFrameRequested = false;
+        mFrameCount++;
+    }
+
+    void onLayout() {
+        if (mTracking) {
+            mLayoutCount++;
+        }
+    }
+
+    void setReleaseVelocity(float velocity) {
+        mReleaseVelocity = velocity;
+    }
+
+    /**
+     * 滑动结束时调用
+     * @param direction 本次滑动最终的方向
+     * @return 本次调用结束了一次统计时返回true
+     */
+    boolean end(int direction) {
+        if (!mTracking) {
+            return false;
+        }
+        mTracking = false;
+        mDirection = direction;
+        mEndNanos = System.nanoTime();
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package com.yy.besideslidinglayout;
+
+import android.view.Choreographer;
+
+import com.yy.besideslidinglayout.core.FrameTicker;
+
+/**
+ * 进程内所有BesideSlidingLayout共享的帧驱动。同时进行的滚动动画再多，每一帧也只有一个
+ * Choreographer帧回调，在其中依次计算所有动画。没有动画时不请求帧回调。只能在UI线程中使用
+ */
+final class SlideTicker implements Choreographer.FrameCallback {
+
+    private static SlideTicker sInstance;
+
+    private final Choreographer mChoreographer;
+    private final FrameTicker mTicker = new FrameTicker();
+
+    /**
+     * 是否已经请求了下一帧
+     */
+    private boolean mPosted;
+
+    private SlideTicker(Choreographer choreographer) {
+        mChoreographer = choreographer;
+    }
+
+    /**
+     * 获取UI线程的帧驱动，Choreographer被替换时（例如测试环境重置）一并重新创建
+     */
+    static SlideTicker getInstance() {
+        Choreographer choreographer = Choreographer.getInstance();
+        if (sInstance == null || sInstance.mChoreographer != choreographer) {
+            sInstance = new SlideTicker(choreographer);
+        }
+        return sInstance;
+    }
+
+    /**
+     * 从下一帧开始驱动client，已经在驱动中时不做任何事
+     */
+    void add(FrameTicker.Client client) {
+        mTicker.add(client);
+        if (!mPosted) {
+            mPosted = true;
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 停止驱动client，没有任何动画时取消已经请求的帧回调
+     */
+    void remove(FrameTicker.Client client) {
+        mTicker.remove(client);
+        if (mPosted && mTicker.isEmpty()) {
+            mPosted = false;
+            mChoreographer.removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mPosted = false;
+        //动画在本帧中结束时可能开始新的动画，此时已经重新请求了下一帧
+        if (mTicker.doFrame(frameTimeNanos) && !mPosted) {
+            mPosted = true;
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+}
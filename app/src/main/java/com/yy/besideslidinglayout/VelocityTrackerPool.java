@@ -0,0 +1,46 @@
+package com.yy.besideslidinglayout;
+
+import android.view.VelocityTracker;
+
+/**
+ * 所有BesideSlidingLayout共享的VelocityTracker。同一时刻只有处理当前手势的布局需要计算速度，
+ * 手势开始时借出，结束时清空后归还，实例再多也只保留少量对象。只能在UI线程中使用
+ */
+final class VelocityTrackerPool {
+
+    /**
+     * 最多保留的空闲对象数，嵌套的布局同时处理同一个手势时每层各需要一个
+     */
+    private static final int MAX_POOL_SIZE = 4;
+
+    private static final VelocityTracker[] sPool = new VelocityTracker[MAX_POOL_SIZE];
+    private static int sPoolSize;
+
+    private VelocityTrackerPool() {
+    }
+
+    /**
+     * 借出一个空的VelocityTracker
+     */
+    static VelocityTracker acquire() {
+        if (sPoolSize > 0) {
+            VelocityTracker tracker = sPool[--sPoolSize];
+            sPool[sPoolSize] = null;
+            return tracker;
+        }
+        return VelocityTracker.obtain();
+    }
+
+    /**
+     * 清空并归还，池满时直接回收
+     * @param tracker 借出的VelocityTracker，归还后不能再使用
+     */
+    static void release(VelocityTracker tracker) {
+        tracker.clear();
+        if (sPoolSize < MAX_POOL_SIZE) {
+            sPool[sPoolSize++] = tracker;
+        } else {
+            tracker.recycle();
+        }
+    }
+}
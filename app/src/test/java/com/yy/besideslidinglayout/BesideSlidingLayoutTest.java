@@ -0,0 +1,1170 @@
+package com.yy.besideslidinglayout;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.util.Scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在暂停的主线程调度器上按60Hz逐帧推进时钟，统计每次滑动引起的布局次数和帧数。
+ * 滑动只改变主界面的translationX，任何一次requestLayout或者measure都说明滑动过程触发了重新布局
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class BesideSlidingLayoutTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int MENU_WIDTH = 200;
+
+    private static final int FRAME_MILLIS = 16;
+
+    /**
+     * 触摸事件的间隔，每帧收到4个事件
+     */
+    private static final int TOUCH_MILLIS = 4;
+
+    /**
+     * 从静止滑过一个菜单宽度允许使用的最多帧数，弹簧动画大约需要300毫秒
+     */
+    private static final int MAX_SETTLE_FRAMES = 24;
+
+    /**
+     * 防止动画无法结束时死循环
+     */
+    private static final int FRAME_LIMIT = 120;
+
+    private Scheduler scheduler;
+    private Activity activity;
+    private CountingLayout layout;
+    private CountingView content;
+    private long downTime;
+    private long eventTime;
+
+    @Before
+    public void setUp() {
+        ShadowChoreographer.setPostCallbackDelay(FRAME_MILLIS);
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+        activity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+        content = new CountingView(activity);
+        layout = createLayout(content);
+        activity.setContentView(layout);
+
+        scheduler = Robolectric.getForegroundThreadScheduler();
+        scheduler.pause();
+        scheduler.advanceToLastPostedRunnable();
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+        layout.resetCounts();
+        content.resetCounts();
+    }
+
+    @Test
+    public void scrollToLeftMenuNeverRelayouts() {
+        layout.scrollToLeftMenu();
+        int frames = runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void scrollToRightMenuNeverRelayouts() {
+        layout.scrollToRightMenu();
+        int frames = runFrames();
+        assertSettled(-MENU_WIDTH, false, true);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void closeMenusNeverRelayout() {
+        layout.scrollToLeftMenu();
+        runFrames();
+        layout.scrollToContentMenuFromLeftMenu();
+        int frames = runFrames();
+        assertSettled(0, false, false);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+
+        layout.scrollToRightMenu();
+        runFrames();
+        layout.scrollToContentMenuFromRightMenu();
+        frames = runFrames();
+        assertSettled(0, false, false);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void dragPastHalfOpensLeftMenu() {
+        int moves = drag(20f, 20f + MENU_WIDTH * 3 / 4, 60);
+        //每帧收到4个移动事件，主界面的位置每帧只更新一次
+        assertTrue("updates " + content.translationUpdates, content.translationUpdates <= moves / 4 + 1);
+        release(20f + MENU_WIDTH * 3 / 4);
+        int frames = runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void slowDragBeforeHalfClosesRightMenu() {
+        drag(WIDTH - 20f, WIDTH - 20f - MENU_WIDTH / 4, 150);
+        release(WIDTH - 20f - MENU_WIDTH / 4);
+        runFrames();
+        assertSettled(0, false, false);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void flingOpensRightMenu() {
+        drag(WIDTH - 20f, WIDTH - 80f, 4);
+        release(WIDTH - 80f);
+        int frames = runFrames();
+        assertSettled(-MENU_WIDTH, false, true);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void flingClosesOpenedLeftMenu() {
+        layout.scrollToLeftMenu();
+        runFrames();
+        drag(WIDTH - 20f, WIDTH - 80f, 4);
+        release(WIDTH - 80f);
+        int frames = runFrames();
+        assertSettled(0, false, false);
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void tapOnOpenedContentClosesRightMenu() {
+        layout.scrollToRightMenu();
+        runFrames();
+        drag(50f, 50f, 1);
+        release(50f);
+        runFrames();
+        assertSettled(0, false, false);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void metricsReportedOncePerTransition() {
+        final int[] reports = new int[1];
+        layout.setOnSlideMetricsListener(new BesideSlidingLayout.OnSlideMetricsListener() {
+            @Override
+            public void onSlideMetrics(SlideMetrics metrics) {
+                reports[0]++;
+                assertEquals(BesideSlidingLayout.SHOW_LEFT_MENU, metrics.getDirection());
+                assertEquals(0, metrics.getLayoutCount());
+                assertTrue(metrics.getFrameCount() > 0);
+                assertTrue(metrics.getFrameCount() <= MAX_SETTLE_FRAMES + 60 / 4 + 1);
+                assertTrue(metrics.getReleaseVelocity() > 0);
+            }
+        });
+        drag(20f, 20f + MENU_WIDTH * 3 / 4, 60);
+        release(20f + MENU_WIDTH * 3 / 4);
+        runFrames();
+        assertEquals(1, reports[0]);
+        assertSettled(MENU_WIDTH, true, false);
+    }
+
+    @Test
+    public void wrapContentFollowsContentSize() {
+        View row = new View(activity);
+        CountingLayout wrapped = createLayout(row);
+        row.setLayoutParams(new BesideSlidingLayout.LayoutParams(
+                BesideSlidingLayout.LayoutParams.MATCH_PARENT, 120));
+        wrapped.setPadding(10, 5, 10, 5);
+
+        //列表项中的wrap_content高度：本布局与主界面加上内边距一样高，菜单按最终的高度测量
+        wrapped.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+        assertEquals(WIDTH, wrapped.getMeasuredWidth());
+        assertEquals(130, wrapped.getMeasuredHeight());
+        assertEquals(WIDTH - 20, row.getMeasuredWidth());
+        assertEquals(120, row.getMeasuredHeight());
+        assertEquals(MENU_WIDTH, wrapped.getChildAt(0).getMeasuredWidth());
+        assertEquals(120, wrapped.getChildAt(0).getMeasuredHeight());
+
+        wrapped.layout(0, 0, WIDTH, 130);
+        assertEquals(10, row.getLeft());
+        assertEquals(5, row.getTop());
+        assertEquals(10, wrapped.getChildAt(0).getLeft());
+        assertEquals(WIDTH - 10, wrapped.getChildAt(1).getRight());
+
+        //父布局不限制尺寸时不会变成0或者占满父布局
+        wrapped.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        assertEquals(130, wrapped.getMeasuredHeight());
+        assertEquals(120, row.getMeasuredHeight());
+    }
+
+    @Test
+    public void removedChildrenReleaseTheirRoles() {
+        View leftMenu = layout.getChildAt(0);
+        layout.scrollToLeftMenu();
+        runFrames();
+
+        //菜单打开时换上新的主界面，新主界面停在原来的位置上，移除的主界面不再移动
+        CountingView removedContent = content;
+        layout.removeView(removedContent);
+        content = new CountingView(activity);
+        layout.addView(content, new BesideSlidingLayout.LayoutParams(
+                BesideSlidingLayout.LayoutParams.MATCH_PARENT, BesideSlidingLayout.LayoutParams.MATCH_PARENT));
+        assertEquals(MENU_WIDTH, (int) content.getTranslationX());
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+        assertSettled(0, false, false);
+        assertEquals(MENU_WIDTH, (int) removedContent.getTranslationX());
+
+        //移除左侧菜单后不能再滑出左侧菜单，也不再改变它的可见性
+        layout.removeView(leftMenu);
+        leftMenu.setVisibility(View.VISIBLE);
+        resize(WIDTH, HEIGHT);
+        layout.scrollToLeftMenu();
+        runFrames();
+        assertSettled(0, false, false);
+        layout.scrollToRightMenu();
+        runFrames();
+        assertSettled(-MENU_WIDTH, false, true);
+        assertEquals(View.VISIBLE, leftMenu.getVisibility());
+
+        //全部移除后不再测量原来的子布局
+        layout.removeAllViews();
+        resize(WIDTH / 2, HEIGHT);
+        assertEquals(WIDTH, content.getMeasuredWidth());
+    }
+
+    @Test
+    public void lazyMenuAttachedBeforeFirstFrame() {
+        final View[] inflated = new View[1];
+        layout.setOnMenuInflateListener(new BesideSlidingLayout.OnMenuInflateListener() {
+            @Override
+            public void onMenuInflated(View menu, int role) {
+                assertEquals(BesideSlidingLayout.ROLE_LEFT_MENU, role);
+                inflated[0] = menu;
+            }
+        });
+        ViewStub stub = new ViewStub(layout.getContext(), android.R.layout.simple_list_item_1);
+        layout.removeViewAt(0);
+        layout.addView(stub, 0, menuParams(BesideSlidingLayout.ROLE_LEFT_MENU));
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+
+        layout.scrollToLeftMenu();
+        assertTrue(inflated[0] != null);
+        assertEquals(inflated[0], layout.getChildAt(0));
+        assertEquals(MENU_WIDTH, inflated[0].getWidth());
+        runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        assertEquals(View.VISIBLE, inflated[0].getVisibility());
+    }
+
+    @Test
+    public void edgeDragOpensLazyMenu() {
+        ViewStub stub = new ViewStub(layout.getContext(), android.R.layout.simple_list_item_1);
+        layout.removeViewAt(0);
+        layout.addView(stub, 0, menuParams(BesideSlidingLayout.ROLE_LEFT_MENU));
+        layout.setEdgeSize(20f);
+        resize(WIDTH, HEIGHT);
+
+        //还没有加载的菜单宽度为0，从边缘区域开始的第一次拖动仍然可以滑出
+        drag(5f, 5f + MENU_WIDTH * 3 / 4, 30);
+        advanceFrames(1);
+        assertTrue(layout.isSliding());
+        assertEquals(MENU_WIDTH * 3 / 4, (int) content.getTranslationX());
+        assertEquals(MENU_WIDTH, layout.getChildAt(0).getWidth());
+        release(5f + MENU_WIDTH * 3 / 4);
+        runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+    }
+
+    @Test
+    public void nestedScrollAndFlingOpenLazyMenus() {
+        layout.removeViewAt(1);
+        layout.addView(new ViewStub(layout.getContext(), android.R.layout.simple_list_item_1), 1,
+                menuParams(BesideSlidingLayout.ROLE_RIGHT_MENU));
+        layout.removeViewAt(0);
+        layout.addView(new ViewStub(layout.getContext(), android.R.layout.simple_list_item_1), 0,
+                menuParams(BesideSlidingLayout.ROLE_LEFT_MENU));
+        resize(WIDTH, HEIGHT);
+
+        layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_HORIZONTAL);
+        layout.onNestedScroll(content, 0, 0, -120, 0);
+        advanceFrames(1);
+        assertEquals(120, (int) content.getTranslationX());
+        layout.onStopNestedScroll(content);
+        runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+
+        layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_HORIZONTAL);
+        assertTrue(layout.onNestedFling(content, 3000f, 0f, false));
+        layout.onStopNestedScroll(content);
+        runFrames();
+        assertSettled(-MENU_WIDTH, false, true);
+    }
+
+    @Test
+    public void closedLazyMenuEvictedAndRecreated() {
+        final int[] evictions = new int[1];
+        layout.setOnMenuEvictListener(new BesideSlidingLayout.OnMenuEvictListener() {
+            @Override
+            public void onMenuEvicted(View menu, int role) {
+                assertEquals(BesideSlidingLayout.ROLE_LEFT_MENU, role);
+                evictions[0]++;
+            }
+        });
+        ViewStub stub = new ViewStub(layout.getContext(), android.R.layout.simple_list_item_1);
+        layout.removeViewAt(0);
+        layout.addView(stub, 0, menuParams(BesideSlidingLayout.ROLE_LEFT_MENU));
+        layout.scrollToLeftMenu();
+        runFrames();
+        View first = layout.getChildAt(0);
+
+        //菜单打开时不会被释放
+        layout.evictClosedMenus();
+        assertEquals(0, evictions[0]);
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+        layout.evictClosedMenus();
+        assertEquals(1, evictions[0]);
+        assertEquals(stub, layout.getChildAt(0));
+
+        layout.scrollToLeftMenu();
+        runFrames();
+        assertTrue(layout.getChildAt(0) != first);
+        assertFalse(layout.getChildAt(0) instanceof ViewStub);
+        assertSettled(MENU_WIDTH, true, false);
+    }
+
+    @Test
+    public void coveredMenuNotDrawn() {
+        CountingView menu = new CountingView(layout.getContext());
+        layout.removeViewAt(0);
+        layout.addView(menu, 0, menuParams(BesideSlidingLayout.ROLE_LEFT_MENU));
+        content.setBackgroundColor(Color.WHITE);
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        //主界面不透明并且完全遮住菜单时不绘制菜单
+        layout.draw(canvas);
+        assertEquals(0, menu.draws);
+
+        layout.scrollToLeftMenu();
+        runFrames();
+        layout.draw(canvas);
+        assertEquals(1, menu.draws);
+    }
+
+    @Test
+    public void clippedMenuRedrawnOnEveryOffsetChange() {
+        content.setBackgroundColor(Color.WHITE);
+        layout.setLayerStrategy(BesideSlidingLayout.LAYER_STRATEGY_HARDWARE);
+        drag(100f, 200f, 8);
+        advanceFrames(1);
+
+        //没有遮罩和阴影时，菜单的裁剪区域也要跟随主界面更新：硬件加速时主界面移动不会重绘本布局，
+        //只有本布局invalidate之后drawChild才会按新的位置重新裁剪
+        layout.resetCounts();
+        content.resetCounts();
+        for (int i = 1; i <= 8; i++) {
+            advance(TOUCH_MILLIS);
+            dispatch(MotionEvent.ACTION_MOVE, 200f + i * 10);
+        }
+        advanceFrames(1);
+        release(280f);
+        runFrames();
+        assertTrue(content.translationUpdates > 0);
+        assertTrue("invalidates " + layout.invalidates + ", moves " + content.translationUpdates,
+                layout.invalidates >= content.translationUpdates);
+    }
+
+    @Test
+    public void sessionQualityLevelStepsDownEffects() {
+        CountingDrawable shadow = new CountingDrawable();
+        layout.setEdgeShadow(shadow);
+        layout.setAdaptiveQuality(true);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        layout.scrollToLeftMenu();
+        int fullFrames = runFrames();
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+
+        BesideSlidingLayout.setSessionQualityLevel(BesideSlidingLayout.QUALITY_REDUCED);
+        layout.scrollToLeftMenu();
+        advanceFrames(2);
+        assertEquals(BesideSlidingLayout.QUALITY_REDUCED, layout.getQualityLevel());
+        layout.draw(canvas);
+        assertEquals(0, shadow.draws);
+        runFrames();
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+
+        //最低等级改用快照绘制并缩短回弹，设置的绘制策略保持不变
+        BesideSlidingLayout.setSessionQualityLevel(BesideSlidingLayout.QUALITY_MINIMAL);
+        layout.scrollToLeftMenu();
+        int minimalFrames = runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        assertTrue(minimalFrames + " >= " + fullFrames, minimalFrames < fullFrames);
+        assertEquals(BesideSlidingLayout.LAYER_STRATEGY_HARDWARE, layout.getLayerStrategy());
+
+        //关闭自适应后恢复完整效果
+        layout.setAdaptiveQuality(false);
+        assertEquals(BesideSlidingLayout.QUALITY_FULL, layout.getQualityLevel());
+        layout.draw(canvas);
+        assertEquals(1, shadow.draws);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void adaptiveQualityStepsDownOnlyAfterRepeatedJank() {
+        //太短的滑动和单独一次卡顿都不降级
+        assertFalse(AdaptiveQuality.onTransition(AdaptiveQuality.MIN_FRAMES - 1, AdaptiveQuality.MIN_FRAMES - 1));
+        assertFalse(AdaptiveQuality.onTransition(20, 10));
+        assertFalse(AdaptiveQuality.onTransition(20, 0));
+        assertFalse(AdaptiveQuality.onTransition(20, 10));
+        assertEquals(BesideSlidingLayout.QUALITY_FULL, BesideSlidingLayout.getSessionQualityLevel());
+
+        assertTrue(AdaptiveQuality.onTransition(20, 10));
+        assertEquals(BesideSlidingLayout.QUALITY_REDUCED, BesideSlidingLayout.getSessionQualityLevel());
+        assertFalse(AdaptiveQuality.onTransition(20, 10));
+        assertTrue(AdaptiveQuality.onTransition(20, 10));
+        assertEquals(BesideSlidingLayout.QUALITY_MINIMAL, BesideSlidingLayout.getSessionQualityLevel());
+        assertFalse(AdaptiveQuality.onTransition(20, 10));
+        assertFalse(AdaptiveQuality.onTransition(20, 10));
+        assertEquals(BesideSlidingLayout.QUALITY_MINIMAL, BesideSlidingLayout.getSessionQualityLevel());
+
+        //外部指定的等级可以恢复完整效果
+        BesideSlidingLayout.setSessionQualityLevel(BesideSlidingLayout.QUALITY_FULL);
+        assertEquals(BesideSlidingLayout.QUALITY_FULL, BesideSlidingLayout.getSessionQualityLevel());
+    }
+
+    @Test
+    public void nestedScrollingChildDrivesSlide() {
+        NestedCarousel carousel = new NestedCarousel(activity, 100);
+        content = carousel;
+        layout = createLayout(carousel);
+        activity.setContentView(layout);
+        resize(WIDTH, HEIGHT);
+        carousel.scrollTo(60, 0);
+
+        //手指向右拖动260：子布局先滚回起点消耗60，剩下的200拉出左侧菜单
+        drag(100f, 360f, 26);
+        assertEquals(0, carousel.getScrollX());
+        assertEquals(MENU_WIDTH, (int) carousel.getTranslationX());
+        assertTrue(layout.isSliding());
+
+        //反向拖动时主界面先关闭，子布局保持不动
+        for (int i = 1; i <= 5; i++) {
+            advance(TOUCH_MILLIS);
+            dispatch(MotionEvent.ACTION_MOVE, 360f - i * 10);
+        }
+        assertEquals(MENU_WIDTH - 50, (int) carousel.getTranslationX());
+        assertEquals(0, carousel.getScrollX());
+
+        release(310f);
+        runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        assertEquals(0, carousel.getScrollX());
+    }
+
+    @Test
+    public void nestedScrollLeftoverMovesContent() {
+        assertFalse(layout.onStartNestedScroll(content, content, View.SCROLL_AXIS_VERTICAL));
+        assertTrue(layout.onStartNestedScroll(content, content, View.SCROLL_AXIS_HORIZONTAL));
+        layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_HORIZONTAL);
+
+        //子布局已经滚动到左边界，剩下的距离拉出左侧菜单
+        int[] consumed = new int[2];
+        layout.onNestedPreScroll(content, -30, 0, consumed);
+        assertEquals(0, consumed[0]);
+        layout.onNestedScroll(content, 0, 0, -120, 0);
+        advanceFrames(1);
+        assertEquals(120, (int) content.getTranslationX());
+
+        //主界面移动过之后先由主界面消耗，关闭到0为止，剩下的交给子布局
+        layout.onNestedPreScroll(content, 40, 0, consumed);
+        assertEquals(40, consumed[0]);
+        layout.onNestedPreScroll(content, 200, 0, consumed);
+        assertEquals(80, consumed[0]);
+        advanceFrames(1);
+        assertEquals(0, (int) content.getTranslationX());
+
+        layout.onNestedScroll(content, 0, 0, -MENU_WIDTH * 3 / 4, 0);
+        layout.onStopNestedScroll(content);
+        runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void nestedFlingOpensAndClosesMenus() {
+        layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_HORIZONTAL);
+        //子布局自己处理了的抛出以及速度不够的抛出都不处理
+        assertFalse(layout.onNestedFling(content, -3000f, 0f, true));
+        assertFalse(layout.onNestedFling(content, -1f, 0f, false));
+        assertTrue(layout.onNestedFling(content, -3000f, 0f, false));
+        layout.onStopNestedScroll(content);
+        runFrames();
+        assertSettled(MENU_WIDTH, true, false);
+
+        //拖动中抛出时由本布局接管，子布局不再滚动
+        layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_HORIZONTAL);
+        layout.onNestedScroll(content, 0, 0, 20, 0);
+        assertTrue(layout.onNestedPreFling(content, 3000f, 0f));
+        layout.onStopNestedScroll(content);
+        runFrames();
+        assertSettled(0, false, false);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void nestedScrollSuppressesTouchIntercept() {
+        //会处理触摸事件的子布局，与开始嵌套滚动的子布局一样接收ACTION_DOWN
+        content.setClickable(true);
+        downTime = SystemClock.uptimeMillis();
+        eventTime = downTime;
+        dispatch(MotionEvent.ACTION_DOWN, 20f);
+        layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_HORIZONTAL);
+        for (int i = 1; i <= 20; i++) {
+            advance(TOUCH_MILLIS);
+            dispatch(MotionEvent.ACTION_MOVE, 20f + i * 10);
+        }
+        advanceFrames(1);
+        assertFalse(layout.isSliding());
+        assertEquals(0, (int) content.getTranslationX());
+        layout.onStopNestedScroll(content);
+        release(220f);
+        runFrames();
+        assertSettled(0, false, false);
+    }
+
+    @Test
+    public void edgeShadowFollowsContentEdge() {
+        CountingDrawable shadow = new CountingDrawable();
+        layout.setEdgeShadow(shadow);
+        layout.setEdgeShadowWidth(10);
+        layout.setScrimColor(0x80000000);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        //菜单都关闭时不绘制
+        layout.draw(canvas);
+        assertEquals(0, shadow.draws);
+
+        layout.scrollToLeftMenu();
+        advanceFrames(2);
+        int partial = (int) content.getTranslationX();
+        layout.draw(canvas);
+        assertEquals(1, shadow.draws);
+        assertEquals(partial, shadow.getBounds().right);
+        assertEquals(partial - 10, shadow.getBounds().left);
+        assertTrue("alpha " + shadow.alpha, Math.abs(255 * partial / MENU_WIDTH - shadow.alpha) <= 1);
+
+        runFrames();
+        layout.draw(canvas);
+        assertEquals(MENU_WIDTH, shadow.getBounds().right);
+        assertEquals(255, shadow.alpha);
+
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+        int draws = shadow.draws;
+        layout.draw(canvas);
+        assertEquals(draws, shadow.draws);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void reverseScrollRetargetsWithoutJump() {
+        final int[] results = {-1, -1};
+        layout.scrollToLeftMenu(new BesideSlidingLayout.OnScrollEndListener() {
+            @Override
+            public void onScrollEnd(boolean finished) {
+                results[0] = finished ? 1 : 0;
+            }
+        });
+        advanceFrames(4);
+        int before = (int) content.getTranslationX();
+        assertTrue(before > 0 && before < MENU_WIDTH);
+
+        layout.scrollToContentMenuFromLeftMenu(new BesideSlidingLayout.OnScrollEndListener() {
+            @Override
+            public void onScrollEnd(boolean finished) {
+                results[1] = finished ? 1 : 0;
+            }
+        });
+        assertEquals(0, results[0]);
+        advanceFrames(1);
+        //转向后的第一帧从当前位置和速度继续，不会跳动
+        assertTrue(Math.abs(content.getTranslationX() - before) < MENU_WIDTH / 4);
+        runFrames();
+        assertEquals(1, results[1]);
+        assertSettled(0, false, false);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void repeatedScrollDoesNotRestart() {
+        layout.scrollToRightMenu();
+        advanceFrames(3);
+        int updates = content.translationUpdates;
+        layout.scrollToRightMenu();
+        layout.scrollToRightMenu();
+        int frames = runFrames() + 3;
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertTrue(content.translationUpdates >= updates);
+        assertSettled(-MENU_WIDTH, false, true);
+
+        final boolean[] finished = new boolean[1];
+        layout.scrollToRightMenu(new BesideSlidingLayout.OnScrollEndListener() {
+            @Override
+            public void onScrollEnd(boolean done) {
+                finished[0] = done;
+            }
+        });
+        //已经停在终点，立即回调并且不需要任何帧
+        assertTrue(finished[0]);
+        assertEquals(0, runFrames());
+    }
+
+    @Test
+    public void touchCatchesPanelMidFlight() {
+        final int[] results = {-1};
+        layout.scrollToLeftMenu(new BesideSlidingLayout.OnScrollEndListener() {
+            @Override
+            public void onScrollEnd(boolean finished) {
+                results[0] = finished ? 1 : 0;
+            }
+        });
+        advanceFrames(3);
+        int caught = (int) content.getTranslationX();
+        assertTrue(caught > 0 && caught < MENU_WIDTH);
+
+        downTime = SystemClock.uptimeMillis();
+        eventTime = downTime;
+        dispatch(MotionEvent.ACTION_DOWN, 300f);
+        assertEquals(0, results[0]);
+        advanceFrames(2);
+        assertEquals(caught, (int) content.getTranslationX());
+
+        advance(TOUCH_MILLIS);
+        dispatch(MotionEvent.ACTION_MOVE, 290f);
+        advanceFrames(1);
+        assertEquals(caught - 10, (int) content.getTranslationX());
+        release(290f);
+        runFrames();
+        assertEquals(0, results[0]);
+        assertTrue(content.getTranslationX() == 0 || content.getTranslationX() == MENU_WIDTH);
+        assertNoRelayout();
+    }
+
+    @Test
+    public void detachDuringScrollJumpsToTarget() {
+        final int[] results = {-1};
+        layout.scrollToLeftMenu(new BesideSlidingLayout.OnScrollEndListener() {
+            @Override
+            public void onScrollEnd(boolean finished) {
+                results[0] = finished ? 1 : 0;
+            }
+        });
+        advanceFrames(3);
+        ((ViewGroup) layout.getParent()).removeView(layout);
+        assertEquals(1, results[0]);
+        assertSettled(MENU_WIDTH, true, false);
+
+        //移除后不再有帧回调移动主界面
+        int updates = content.translationUpdates;
+        advanceFrames(10);
+        assertEquals(updates, content.translationUpdates);
+
+        activity.setContentView(layout);
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+        assertSettled(0, false, false);
+    }
+
+    @Test
+    public void detachDuringDragSettlesAtNearestEdge() {
+        drag(20f, 20f + MENU_WIDTH * 3 / 4, 30);
+        ((ViewGroup) layout.getParent()).removeView(layout);
+        assertSettled(MENU_WIDTH, true, false);
+
+        activity.setContentView(layout);
+        drag(WIDTH - 20f, WIDTH - 20f - MENU_WIDTH * 3 / 4, 30);
+        release(WIDTH - 20f - MENU_WIDTH * 3 / 4);
+        runFrames();
+        assertSettled(0, false, false);
+    }
+
+    @Test
+    public void settledActionsWaitForSlideToStop() {
+        final int[] runs = new int[2];
+        Runnable update = new Runnable() {
+            @Override
+            public void run() {
+                assertFalse(layout.isSliding());
+                runs[0]++;
+            }
+        };
+        layout.runWhenSettled(update);
+        assertEquals(1, runs[0]);
+
+        layout.scrollToLeftMenu();
+        assertTrue(layout.isSliding());
+        layout.runWhenSettled(update);
+        layout.runWhenSettled(update);
+        layout.runWhenSettled(new Runnable() {
+            @Override
+            public void run() {
+                runs[1]++;
+            }
+        });
+        advanceFrames(3);
+        assertEquals(1, runs[0]);
+        runFrames();
+        assertFalse(layout.isSliding());
+        assertEquals(2, runs[0]);
+        assertEquals(1, runs[1]);
+
+        layout.scrollToContentMenuFromLeftMenu();
+        layout.runWhenSettled(update);
+        layout.cancelWhenSettled(update);
+        runFrames();
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    public void resizeKeepsOpenLeftMenuOpen() {
+        useHalfWidthMenus();
+        layout.scrollToLeftMenu();
+        runFrames();
+        assertSettled(WIDTH / 2, true, false);
+
+        layout.resetCounts();
+        resize(HEIGHT, WIDTH);
+        //一次测量和布局就换算到新的宽度上
+        assertSettled(HEIGHT / 2, true, false);
+        assertEquals(1, layout.measures);
+        assertEquals(1, layout.layouts);
+
+        resize(WIDTH, HEIGHT);
+        assertSettled(WIDTH / 2, true, false);
+        layout.scrollToContentMenuFromLeftMenu();
+        runFrames();
+        assertSettled(0, false, false);
+    }
+
+    @Test
+    public void resizeDuringScrollRetargetsRightMenu() {
+        useHalfWidthMenus();
+        layout.scrollToRightMenu();
+        advanceFrames(3);
+        assertTrue(content.getTranslationX() < 0);
+
+        resize(HEIGHT, WIDTH);
+        runFrames();
+        assertSettled(-HEIGHT / 2, false, true);
+
+        resize(WIDTH, HEIGHT);
+        assertSettled(-WIDTH / 2, false, true);
+    }
+
+    @Test
+    public void resizeKeepsClosedMenusClosed() {
+        useHalfWidthMenus();
+        resize(HEIGHT, WIDTH);
+        assertSettled(0, false, false);
+        layout.scrollToRightMenu();
+        runFrames();
+        assertSettled(-HEIGHT / 2, false, true);
+    }
+
+    /**
+     * 把左右菜单换成宽度为本布局一半的菜单，菜单宽度随本布局的尺寸变化
+     */
+    private void useHalfWidthMenus() {
+        for (int i = layout.getChildCount() - 1; i >= 0; i--) {
+            if (layout.getChildAt(i) != content) {
+                layout.removeViewAt(i);
+            }
+        }
+        for (int role = BesideSlidingLayout.ROLE_LEFT_MENU; role <= BesideSlidingLayout.ROLE_RIGHT_MENU; role++) {
+            BesideSlidingLayout.LayoutParams params = new BesideSlidingLayout.LayoutParams(
+                    BesideSlidingLayout.LayoutParams.MATCH_PARENT, BesideSlidingLayout.LayoutParams.MATCH_PARENT);
+            params.role = role;
+            layout.addView(new HalfWidthView(activity), params);
+        }
+        resize(WIDTH, HEIGHT);
+        layout.resetCounts();
+        content.resetCounts();
+    }
+
+    private void resize(int width, int height) {
+        layout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, width, height);
+    }
+
+    @Test
+    public void restoredMenuIsPlacedInFirstLayout() {
+        layout.scrollToRightMenu();
+        runFrames();
+        Parcel parcel = Parcel.obtain();
+        layout.onSaveInstanceState().writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        Parcelable state = BesideSlidingLayout.SavedState.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+
+        CountingView restoredContent = new CountingView(activity);
+        CountingLayout restored = createLayout(restoredContent);
+        restored.resetCounts();
+        restored.onRestoreInstanceState(state);
+        restored.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        restored.layout(0, 0, WIDTH, HEIGHT);
+
+        //不播放动画，主界面只移动一次
+        assertEquals(-MENU_WIDTH, (int) restoredContent.getTranslationX());
+        assertEquals(1, restoredContent.translationUpdates);
+        assertTrue(restored.isRightLayoutVisible());
+        assertFalse(restored.isSliding());
+        assertEquals(0, restored.layoutRequests);
+        assertEquals(1, restored.measures);
+        assertEquals(1, restored.layouts);
+    }
+
+    @Test
+    public void savedStateUsesScrollTarget() {
+        layout.scrollToLeftMenu();
+        advanceFrames(2);
+        BesideSlidingLayout.SavedState state = (BesideSlidingLayout.SavedState) layout.onSaveInstanceState();
+        assertEquals(BesideSlidingLayout.ROLE_LEFT_MENU, state.openMenu);
+        assertEquals(1f, state.offsetFraction, 0f);
+        runFrames();
+
+        layout.scrollToContentMenuFromLeftMenu();
+        advanceFrames(2);
+        state = (BesideSlidingLayout.SavedState) layout.onSaveInstanceState();
+        assertEquals(BesideSlidingLayout.ROLE_CONTENT, state.openMenu);
+    }
+
+    @Test
+    public void concurrentSlidesShareFrames() {
+        CountingView[] contents = new CountingView[10];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = new CountingView(activity);
+            CountingLayout other = createLayout(contents[i]);
+            other.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            other.layout(0, 0, WIDTH, HEIGHT);
+            if (i % 2 == 0) {
+                other.scrollToLeftMenu();
+            } else {
+                other.scrollToRightMenu();
+            }
+        }
+        layout.scrollToLeftMenu();
+        int frames = runFrames();
+        //所有布局在同样的帧数内同时到达终点
+        assertTrue("frames " + frames, frames <= MAX_SETTLE_FRAMES);
+        assertSettled(MENU_WIDTH, true, false);
+        for (int i = 0; i < contents.length; i++) {
+            if (i % 2 == 0) {
+                assertEquals(MENU_WIDTH, (int) contents[i].getTranslationX());
+                assertEquals(content.translationUpdates, contents[i].translationUpdates);
+            } else {
+                assertEquals(-MENU_WIDTH, (int) contents[i].getTranslationX());
+            }
+        }
+    }
+
+    private CountingLayout createLayout(View contentView) {
+        CountingLayout created = new CountingLayout(activity);
+        created.addView(new View(activity), menuParams(BesideSlidingLayout.ROLE_LEFT_MENU));
+        created.addView(new View(activity), menuParams(BesideSlidingLayout.ROLE_RIGHT_MENU));
+        created.addView(contentView, new BesideSlidingLayout.LayoutParams(
+                BesideSlidingLayout.LayoutParams.MATCH_PARENT, BesideSlidingLayout.LayoutParams.MATCH_PARENT));
+        return created;
+    }
+
+    private BesideSlidingLayout.LayoutParams menuParams(int role) {
+        BesideSlidingLayout.LayoutParams params = new BesideSlidingLayout.LayoutParams(
+                MENU_WIDTH, BesideSlidingLayout.LayoutParams.MATCH_PARENT);
+        params.role = role;
+        return params;
+    }
+
+    /**
+     * 按下后以TOUCH_MILLIS的间隔匀速移动到toX
+     * @return 移动事件数
+     */
+    private int drag(float fromX, float toX, int moves) {
+        downTime = SystemClock.uptimeMillis();
+        eventTime = downTime;
+        dispatch(MotionEvent.ACTION_DOWN, fromX);
+        for (int i = 1; i <= moves; i++) {
+            advance(TOUCH_MILLIS);
+            dispatch(MotionEvent.ACTION_MOVE, fromX + (toX - fromX) * i / moves);
+        }
+        return moves;
+    }
+
+    private void release(float x) {
+        advance(TOUCH_MILLIS);
+        dispatch(MotionEvent.ACTION_UP, x);
+    }
+
+    private void dispatch(int action, float x) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, HEIGHT / 2, 0);
+        layout.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private void advance(int millis) {
+        scheduler.advanceBy(millis);
+        eventTime += millis;
+    }
+
+    private void advanceFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            advance(FRAME_MILLIS);
+        }
+    }
+
+    /**
+     * 逐帧推进时钟直到没有等待执行的帧回调
+     * @return 推进的帧数
+     */
+    private int runFrames() {
+        int frames = 0;
+        while (scheduler.size() > 0 && frames < FRAME_LIMIT) {
+            scheduler.advanceBy(FRAME_MILLIS);
+            frames++;
+        }
+        return frames;
+    }
+
+    private void assertSettled(int offset, boolean leftVisible, boolean rightVisible) {
+        assertEquals(offset, (int) content.getTranslationX());
+        if (leftVisible) {
+            assertTrue(layout.isLeftLayoutVisible());
+        } else {
+            assertFalse(layout.isLeftLayoutVisible());
+        }
+        if (rightVisible) {
+            assertTrue(layout.isRightLayoutVisible());
+        } else {
+            assertFalse(layout.isRightLayoutVisible());
+        }
+    }
+
+    private void assertNoRelayout() {
+        assertEquals("requestLayout", 0, layout.layoutRequests);
+        assertEquals("measure", 0, layout.measures);
+        assertEquals("layout", 0, layout.layouts);
+    }
+
+    @After
+    public void tearDown() {
+        //效果等级在整个进程中共享，不能影响其他测试
+        BesideSlidingLayout.setSessionQualityLevel(BesideSlidingLayout.QUALITY_FULL);
+    }
+
+    /**
+     * 统计requestLayout、measure、layout以及本布局invalidate次数的布局
+     */
+    private static class CountingLayout extends BesideSlidingLayout {
+
+        int layoutRequests;
+        int measures;
+        int layouts;
+        int invalidates;
+
+        CountingLayout(Context context) {
+            super(context, null);
+        }
+
+        void resetCounts() {
+            layoutRequests = 0;
+            measures = 0;
+            layouts = 0;
+            invalidates = 0;
+        }
+
+        @Override
+        public void invalidate() {
+            super.invalidate();
+            invalidates++;
+        }
+
+        @Override
+        public void requestLayout() {
+            super.requestLayout();
+            layoutRequests++;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            measures++;
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            super.onLayout(changed, l, t, r, b);
+            layouts++;
+        }
+    }
+
+    /**
+     * 记录绘制次数和透明度的阴影
+     */
+    private static class CountingDrawable extends ColorDrawable {
+
+        int draws;
+        int alpha;
+
+        CountingDrawable() {
+            super(Color.BLACK);
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            super.setAlpha(alpha);
+            this.alpha = alpha;
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            super.draw(canvas);
+            draws++;
+        }
+    }
+
+    /**
+     * 按API 21的嵌套滚动协议处理横向拖动的子布局，与RecyclerView的做法一致：先交给父布局预先消耗，
+     * 自身在[0, range]内滚动，剩下的距离再交给父布局，并按offsetInWindow修正上一次的触摸坐标
+     */
+    private static class NestedCarousel extends CountingView {
+
+        private final int range;
+        private final int[] consumed = new int[2];
+        private final int[] offsetInWindow = new int[2];
+        private float lastX;
+
+        NestedCarousel(Context context, int range) {
+            super(context);
+            this.range = range;
+            setNestedScrollingEnabled(true);
+        }
+
+        @Override
+        public boolean onTouchEvent(MotionEvent event) {
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    lastX = event.getX();
+                    startNestedScroll(View.SCROLL_AXIS_HORIZONTAL);
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    int dx = Math.round(lastX - event.getX());
+                    lastX = event.getX();
+                    if (dispatchNestedPreScroll(dx, 0, consumed, offsetInWindow)) {
+                        dx -= consumed[0];
+                        lastX -= offsetInWindow[0];
+                    }
+                    int scrollX = Math.max(0, Math.min(range, getScrollX() + dx));
+                    int used = scrollX - getScrollX();
+                    scrollTo(scrollX, 0);
+                    if (dispatchNestedScroll(used, 0, dx - used, 0, offsetInWindow)) {
+                        lastX -= offsetInWindow[0];
+                    }
+                    break;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
+                    stopNestedScroll();
+                    break;
+                default:
+                    break;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 宽度为可用宽度一半的菜单
+     */
+    private static class HalfWidthView extends View {
+
+        HalfWidthView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec) / 2,
+                    MeasureSpec.getSize(heightMeasureSpec));
+        }
+    }
+
+    /**
+     * 统计translationX实际改变次数和绘制次数的子布局
+     */
+    private static class CountingView extends View {
+
+        int translationUpdates;
+        int draws;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        void resetCounts() {
+            translationUpdates = 0;
+            draws = 0;
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            super.onDraw(canvas);
+            draws++;
+        }
+
+        @Override
+        public void setTranslationX(float translationX) {
+            if (translationX != getTranslationX()) {
+                translationUpdates++;
+            }
+            super.setTranslationX(translationX);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.yy.besideslidinglayout;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewStub;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 检查后台加载完成的通知在结果保存之后才执行
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class LazyMenuTest {
+
+    /**
+     * 在调用的线程中直接执行，配合不暂停的主线程调度器，通知一旦post就立即执行，
+     * 相当于UI线程抢在加载线程保存结果之前处理了通知
+     */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private LazyMenu lazyMenu;
+    private final int[] notified = new int[1];
+    private final boolean[] loadedWhenNotified = new boolean[1];
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        Robolectric.getForegroundThreadScheduler().unPause();
+        ViewStub stub = new ViewStub(activity, android.R.layout.simple_list_item_1);
+        FrameLayout parent = new FrameLayout(activity);
+        parent.addView(stub);
+        lazyMenu = new LazyMenu(stub, parent, new Runnable() {
+            @Override
+            public void run() {
+                notified[0]++;
+                loadedWhenNotified[0] = lazyMenu.isLoaded();
+            }
+        });
+    }
+
+    @Test
+    public void notifiesAfterResultIsSet() {
+        lazyMenu.prewarm(DIRECT_EXECUTOR);
+        assertEquals(1, notified[0]);
+        assertTrue(loadedWhenNotified[0]);
+        View menu = lazyMenu.get();
+        assertEquals(View.INVISIBLE, menu.getVisibility());
+    }
+
+    @Test
+    public void cancelledLoadDoesNotNotify() {
+        lazyMenu.prewarm(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                //不执行，保持加载还没有开始的状态
+            }
+        });
+        lazyMenu.cancel();
+        assertEquals(0, notified[0]);
+        assertFalse(lazyMenu.isLoaded());
+    }
+}
@@ -0,0 +1,105 @@
+package com.yy.besideslidinglayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 用合成的帧时间检查掉帧统计：按相邻两帧的帧时间判断，与帧回调执行得早晚无关
+ */
+public class SlideMetricsTest {
+
+    private static final long FRAME_NANOS = 16666667L;
+
+    /**
+     * 第一帧的帧时间，帧时间为0表示没有上一帧，不能从0开始
+     */
+    private static final long START_NANOS = 1000 * FRAME_NANOS;
+
+    private SlideMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new SlideMetrics();
+        metrics.setRefreshRate(60f);
+        metrics.begin(START_NANOS);
+    }
+
+    @Test
+    public void consecutiveVsyncsAreOnBudget() {
+        for (int vsync = 0; vsync < 10; vsync++) {
+            animationFrame(vsync);
+        }
+        assertEquals(10, metrics.getFrameCount());
+        assertEquals(0, metrics.getFramesOverBudget());
+    }
+
+    @Test
+    public void skippedVsyncsCountAsOverBudget() {
+        animationFrame(0);
+        animationFrame(1);
+        animationFrame(2);
+        //跳过了第3个垂直同步
+        animationFrame(4);
+        animationFrame(5);
+        //跳过了第6、7个垂直同步，只算作一帧超时
+        animationFrame(8);
+        animationFrame(9);
+        assertEquals(7, metrics.getFrameCount());
+        assertEquals(2, metrics.getFramesOverBudget());
+    }
+
+    @Test
+    public void jitterWithinHalfAnIntervalIsOnBudget() {
+        animationFrame(0);
+        metrics.onFrame(START_NANOS + FRAME_NANOS * 14 / 10);
+        assertEquals(0, metrics.getFramesOverBudget());
+    }
+
+    @Test
+    public void pauseWithoutFrameRequestIsNotJank() {
+        dragFrame(0, 0);
+        dragFrame(1, 1);
+        //手指停住5帧，之后的移动事件才请求下一帧，中间的垂直同步本来就没有需要画的内容
+        dragFrame(6, 7);
+        assertEquals(0, metrics.getFramesOverBudget());
+
+        //移动事件在上一帧之后及时请求了下一帧，却晚了两个垂直同步才画出来
+        dragFrame(7, 9);
+        assertEquals(4, metrics.getFrameCount());
+        assertEquals(1, metrics.getFramesOverBudget());
+    }
+
+    @Test
+    public void framesOutsideTransitionAreIgnored() {
+        animationFrame(0);
+        metrics.end(BesideSlidingLayout.SHOW_LEFT_MENU);
+        animationFrame(5);
+        assertEquals(1, metrics.getFrameCount());
+
+        //下一次滑动重新开始计算，与上一次滑动的最后一帧不连续
+        metrics.begin(START_NANOS);
+        animationFrame(10);
+        animationFrame(11);
+        assertEquals(2, metrics.getFrameCount());
+        assertEquals(0, metrics.getFramesOverBudget());
+    }
+
+    /**
+     * 动画帧：在第vsync个垂直同步更新位置，并在帧回调中请求下一帧
+     */
+    private void animationFrame(int vsync) {
+        long frameTime = START_NANOS + vsync * FRAME_NANOS;
+        metrics.onFrame(frameTime);
+        metrics.requestFrame(frameTime);
+    }
+
+    /**
+     * 拖动帧：移动事件在第requestVsync个垂直同步之后不久请求下一帧，在第frameVsync个垂直同步画出
+     */
+    private void dragFrame(int requestVsync, int frameVsync) {
+        metrics.requestFrame(START_NANOS + requestVsync * FRAME_NANOS + FRAME_NANOS / 4);
+        metrics.onFrame(START_NANOS + frameVsync * FRAME_NANOS);
+    }
+}
@@ -0,0 +1,99 @@
+package com.yy.besideslidinglayout.benchmark;
+
+import com.yy.besideslidinglayout.core.FrameTicker;
+import com.yy.besideslidinglayout.core.SlideCore;
+import com.yy.besideslidinglayout.core.SlideSpring;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个布局同时滚动时，由同一个FrameTicker驱动的每一帧的耗时。
+ * 每个实例在到达终点后立即反向滚动，保证每一帧都有instances个动画在计算，
+ * 结果按单帧计算，配合-prof gc可以确认每帧不分配内存
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameTickerBenchmark {
+
+    /**
+     * 每次调用模拟的帧数，按60Hz计算为一秒
+     */
+    private static final int FRAMES = 60;
+
+    private static final long FRAME_NANOS = 16666667L;
+
+    private static final int MENU_WIDTH = 810;
+
+    /**
+     * 同时滚动的布局数
+     */
+    @Param({"1", "10", "100"})
+    public int instances;
+
+    private FrameTicker mTicker;
+    private long mFrameTime;
+
+    /**
+     * 一个布局的滚动动画，与SlideAnimator驱动SlideCore的方式一致
+     */
+    private static final class SlideClient implements FrameTicker.Client {
+
+        private final SlideCore mCore = new SlideCore();
+        private final SlideSpring mSpring = new SlideSpring();
+
+        SlideClient(int initialOffset) {
+            mCore.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+            mCore.finishSlide(initialOffset);
+            mSpring.start(initialOffset, MENU_WIDTH, 0f);
+        }
+
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            if (mSpring.computeOffset(frameTimeNanos)) {
+                mCore.setContentOffset(mSpring.getValue());
+            } else {
+                mCore.finishSlide(mSpring.getValue());
+                mSpring.start(mCore.getContentOffset(), mCore.getContentOffset() == 0 ? MENU_WIDTH : 0, 0f);
+            }
+            return true;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mTicker = new FrameTicker();
+        for (int i = 0; i < instances; i++) {
+            //错开每个实例的起点，让它们处在动画的不同阶段
+            mTicker.add(new SlideClient(MENU_WIDTH * i / instances));
+        }
+        mFrameTime = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public boolean frame() {
+        boolean running = false;
+        for (int i = 0; i < FRAMES; i++) {
+            running = mTicker.doFrame(mFrameTime);
+            mFrameTime += FRAME_NANOS;
+        }
+        return running;
+    }
+}
@@ -0,0 +1,128 @@
+package com.yy.besideslidinglayout.benchmark;
+
+import com.yy.besideslidinglayout.core.SlideCore;
+import com.yy.besideslidinglayout.core.SlideSpring;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用合成的拖动、快速滑动和点击事件流驱动SlideCore和SlideSpring，
+ * 结果按单个事件（或单帧）计算，配合-prof gc可以得到每个事件分配的字节数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SlideCoreBenchmark {
+
+    /**
+     * 一次拖动包含的移动事件数，按120Hz触摸采样持续约半秒
+     */
+    private static final int DRAG_MOVES = 60;
+
+    /**
+     * 一次快速滑动包含的移动事件数
+     */
+    private static final int FLING_MOVES = 8;
+
+    /**
+     * 回弹动画最多计算的帧数，按60Hz计算
+     */
+    private static final int SETTLE_FRAMES = 60;
+
+    private static final long FRAME_NANOS = 16666667L;
+
+    private static final int MENU_WIDTH = 810;
+    private static final int TOUCH_SLOP = 24;
+    private static final float SNAP_VELOCITY = 600f;
+
+    /**
+     * 拖动和快速滑动的横坐标序列，纵坐标带有少量抖动
+     */
+    private final float[] mDragX = new float[DRAG_MOVES];
+    private final float[] mDragY = new float[DRAG_MOVES];
+    private final float[] mFlingX = new float[FLING_MOVES];
+
+    private SlideCore mCore;
+    private SlideSpring mSpring;
+
+    @Setup
+    public void setUp() {
+        mCore = new SlideCore();
+        mCore.setTouchSlop(TOUCH_SLOP);
+        mCore.setSnapVelocity(SNAP_VELOCITY);
+        mCore.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+        mSpring = new SlideSpring();
+        for (int i = 0; i < DRAG_MOVES; i++) {
+            mDragX[i] = 100f + i * 10f;
+            mDragY[i] = 500f + (i % 3);
+        }
+        for (int i = 0; i < FLING_MOVES; i++) {
+            mFlingX[i] = 100f + i * 40f;
+        }
+    }
+
+    /**
+     * 慢速拖出左侧菜单再松手：按下、DRAG_MOVES次移动、抬起，以及回到关闭状态
+     */
+    @Benchmark
+    @OperationsPerInvocation(DRAG_MOVES + 2)
+    public int drag(Blackhole blackhole) {
+        mCore.onDown(mDragX[0], mDragY[0]);
+        for (int i = 0; i < DRAG_MOVES; i++) {
+            blackhole.consume(mCore.onMove(mDragX[i], mDragY[i]));
+            blackhole.consume(mCore.getContentOffset());
+        }
+        int target = mCore.getSettleTarget(0f);
+        mCore.finishSlide(0);
+        return target;
+    }
+
+    /**
+     * 快速滑出左侧菜单：按下、FLING_MOVES次移动、带速度抬起，以及回弹动画的每一帧
+     */
+    @Benchmark
+    @OperationsPerInvocation(FLING_MOVES + 2 + SETTLE_FRAMES)
+    public int fling(Blackhole blackhole) {
+        mCore.onDown(mFlingX[0], 500f);
+        for (int i = 0; i < FLING_MOVES; i++) {
+            blackhole.consume(mCore.onMove(mFlingX[i], 500f));
+        }
+        int target = mCore.getSettleTarget(4000f);
+        mSpring.start(mCore.getContentOffset(), target, 4000f);
+        long frameTime = 0;
+        for (int i = 0; i < SETTLE_FRAMES; i++) {
+            mSpring.computeOffset(frameTime);
+            mCore.setContentOffset(mSpring.getValue());
+            frameTime += FRAME_NANOS;
+        }
+        mCore.finishSlide(0);
+        return target;
+    }
+
+    /**
+     * 点击：按下、一次小于touchSlop的移动、抬起
+     */
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public boolean tap(Blackhole blackhole) {
+        mCore.onDown(300f, 500f);
+        blackhole.consume(mCore.onMove(303f, 501f));
+        return mCore.isTap(303f) && !mCore.isTouchOnOpenedContent(300f, 1080);
+    }
+}
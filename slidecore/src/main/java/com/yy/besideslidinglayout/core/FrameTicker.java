@@ -0,0 +1,131 @@
+package com.yy.besideslidinglayout.core;
+
+/**
+ * 把多个动画合并到同一个帧回调中驱动：每一帧只需要由外部调用一次doFrame，
+ * 所有注册的动画按注册顺序依次计算。动画数量增加时每帧的额外开销只有一次数组遍历。
+ * 注册表保存在可增长的数组中，数量稳定后注册、移除和每一帧的计算都不会创建对象。
+ * 不是线程安全的，只能在同一个线程中使用
+ */
+public class FrameTicker {
+
+    /**
+     * 由FrameTicker驱动的动画
+     */
+    public interface Client {
+
+        /**
+         * 计算一帧
+         * @param frameTimeNanos 帧的时间戳，单位纳秒
+         * @return 还需要下一帧时返回true，返回false后自动移除
+         */
+        boolean onFrame(long frameTimeNanos);
+    }
+
+    private Client[] clients = new Client[4];
+    private int count;
+
+    /**
+     * 正在doFrame中遍历时为true，此时移除只把位置置空，遍历结束后再压缩
+     */
+    private boolean ticking;
+    private boolean hasRemoved;
+
+    /**
+     * 注册一个动画，从下一次doFrame开始驱动，已经注册过时不做任何事
+     * @param client 动画
+     */
+    public void add(Client client) {
+        if (indexOf(client) >= 0) {
+            return;
+        }
+        if (count == clients.length) {
+            Client[] grown = new Client[count * 2];
+            System.arraycopy(clients, 0, grown, 0, count);
+            clients = grown;
+        }
+        clients[count++] = client;
+    }
+
+    /**
+     * 移除一个动画，本帧中还没有计算到的动画被移除后本帧不再计算
+     * @param client 动画
+     */
+    public void remove(Client client) {
+        int index = indexOf(client);
+        if (index < 0) {
+            return;
+        }
+        if (ticking) {
+            clients[index] = null;
+            hasRemoved = true;
+        } else {
+            System.arraycopy(clients, index + 1, clients, index, count - index - 1);
+            clients[--count] = null;
+        }
+    }
+
+    /**
+     * 当前注册的动画数
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (clients[i] != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 驱动所有注册的动画计算一帧，本帧中新注册的动画从下一帧开始计算
+     * @param frameTimeNanos 帧的时间戳，单位纳秒
+     * @return 还有动画需要下一帧时返回true
+     */
+    public boolean doFrame(long frameTimeNanos) {
+        ticking = true;
+        int frameCount = count;
+        for (int i = 0; i < frameCount; i++) {
+            Client client = clients[i];
+            if (client != null && !client.onFrame(frameTimeNanos) && clients[i] == client) {
+                clients[i] = null;
+                hasRemoved = true;
+            }
+        }
+        ticking = false;
+        if (hasRemoved) {
+            compact();
+        }
+        return count > 0;
+    }
+
+    private int indexOf(Client client) {
+        for (int i = 0; i < count; i++) {
+            if (clients[i] == client) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 去掉遍历过程中被置空的位置，保持注册顺序
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (clients[i] != null) {
+                clients[kept++] = clients[i];
+            }
+        }
+        for (int i = kept; i < count; i++) {
+            clients[i] = null;
+        }
+        count = kept;
+        hasRemoved = false;
+    }
+}
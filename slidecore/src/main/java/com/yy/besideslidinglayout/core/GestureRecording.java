@@ -0,0 +1,348 @@
+package com.yy.besideslidinglayout.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 一段触摸事件流的录制结果，连同录制开始时布局的尺寸和参数一起保存，可以通过GestureReplayer重放。
+ * 事件保存在预先分配好的数组中，录制过程中不会创建对象，超出容量的事件会被丢弃。
+ *
+ * 二进制格式（大端序）：
+ * 文件头：int MAGIC, byte VERSION, int 宽度, int 左菜单宽度, int 右菜单宽度, int touchSlop,
+ * float 判定速度, int 边缘区域宽度, float 方向锁定角度, int 初始偏移量, int 事件数；
+ * 版本1没有边缘区域宽度和方向锁定角度，读取时按不限制边缘区域和默认角度处理；
+ * 每个事件：int 相对第一个事件的时间(ms), byte 动作, byte 动作手指的下标, byte 手指数，
+ * 之后每根手指：byte 手指id, float x, float y
+ */
+public class GestureRecording {
+
+    public static final int MAGIC = 0x42534c47;
+    public static final int VERSION = 2;
+
+    /**
+     * 动作的取值与android.view.MotionEvent一致
+     */
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+
+    /**
+     * 录制时布局计算出的松手速度，记录在对应的ACTION_UP之前，x为速度（像素每秒）
+     */
+    public static final int ACTION_RELEASE_VELOCITY = 0x7f;
+
+    /**
+     * 每个事件最多记录的手指数
+     */
+    public static final int MAX_POINTERS = 10;
+
+    /**
+     * 读取文件时允许的最多事件数，约为240Hz的触摸事件连续录制7分钟，防止损坏的文件申请过多内存
+     */
+    public static final int MAX_FILE_EVENTS = 100000;
+
+    private int width;
+    private int leftMenuWidth;
+    private int rightMenuWidth;
+    private int touchSlop;
+    private float snapVelocity;
+    private int edgeSize;
+    private float lockAngle;
+    private int initialOffset;
+
+    private final int[] times;
+    private final byte[] actions;
+    private final byte[] actionIndexes;
+    private final byte[] pointerCounts;
+    private final int[] pointerStarts;
+    private final byte[] pointerIds;
+    private final float[] xs;
+    private final float[] ys;
+
+    private int eventCount;
+    private int pointerRecordCount;
+    private long firstEventTime;
+
+    /**
+     * @param maxEvents 最多录制的事件数
+     */
+    public GestureRecording(int maxEvents) {
+        this(maxEvents, maxEvents * 2);
+    }
+
+    private GestureRecording(int maxEvents, int maxPointerRecords) {
+        times = new int[maxEvents];
+        actions = new byte[maxEvents];
+        actionIndexes = new byte[maxEvents];
+        pointerCounts = new byte[maxEvents];
+        pointerStarts = new int[maxEvents];
+        pointerIds = new byte[maxPointerRecords];
+        xs = new float[maxPointerRecords];
+        ys = new float[maxPointerRecords];
+    }
+
+    /**
+     * 清空已录制的事件，并记录布局当前的尺寸和参数
+     * @param width 布局宽度
+     * @param leftMenuWidth 左侧菜单宽度
+     * @param rightMenuWidth 右侧菜单宽度
+     * @param touchSlop 判定为滑动前可以移动的最大值
+     * @param snapVelocity 松手时判定为快速滑动的速度，单位像素每秒
+     * @param edgeSize 可以滑出菜单的边缘区域的宽度，0表示不限制
+     * @param lockAngle 方向锁定角度，单位度
+     * @param initialOffset 主界面当前的偏移量
+     */
+    public void begin(int width, int leftMenuWidth, int rightMenuWidth, int touchSlop,
+                      float snapVelocity, int edgeSize, float lockAngle, int initialOffset) {
+        this.width = width;
+        this.leftMenuWidth = leftMenuWidth;
+        this.rightMenuWidth = rightMenuWidth;
+        this.touchSlop = touchSlop;
+        this.snapVelocity = snapVelocity;
+        this.edgeSize = edgeSize;
+        this.lockAngle = lockAngle;
+        this.initialOffset = initialOffset;
+        eventCount = 0;
+        pointerRecordCount = 0;
+    }
+
+    /**
+     * 记录一个触摸事件
+     * @param eventTime 事件时间，单位毫秒
+     * @param action 动作，ACTION_*之一
+     * @param actionIndex 动作手指的下标
+     * @param pointerCount 手指数
+     * @param ids 每根手指的id
+     * @param x 每根手指的横坐标
+     * @param y 每根手指的纵坐标
+     * @return 容量已满无法记录时返回false
+     */
+    public boolean record(long eventTime, int action, int actionIndex, int pointerCount,
+                          int[] ids, float[] x, float[] y) {
+        pointerCount = Math.min(pointerCount, MAX_POINTERS);
+        if (eventCount >= times.length || pointerRecordCount + pointerCount > pointerIds.length) {
+            return false;
+        }
+        if (eventCount == 0) {
+            firstEventTime = eventTime;
+        }
+        int event = eventCount++;
+        times[event] = (int) (eventTime - firstEventTime);
+        actions[event] = (byte) action;
+        actionIndexes[event] = (byte) actionIndex;
+        pointerCounts[event] = (byte) pointerCount;
+        pointerStarts[event] = pointerRecordCount;
+        for (int i = 0; i < pointerCount; i++) {
+            pointerIds[pointerRecordCount] = (byte) ids[i];
+            xs[pointerRecordCount] = x[i];
+            ys[pointerRecordCount] = y[i];
+            pointerRecordCount++;
+        }
+        return true;
+    }
+
+    /**
+     * 记录只有一根手指的触摸事件
+     */
+    public boolean record(long eventTime, int action, int pointerId, float x, float y) {
+        if (eventCount >= times.length || pointerRecordCount >= pointerIds.length) {
+            return false;
+        }
+        if (eventCount == 0) {
+            firstEventTime = eventTime;
+        }
+        int event = eventCount++;
+        times[event] = (int) (eventTime - firstEventTime);
+        actions[event] = (byte) action;
+        actionIndexes[event] = 0;
+        pointerCounts[event] = 1;
+        pointerStarts[event] = pointerRecordCount;
+        pointerIds[pointerRecordCount] = (byte) pointerId;
+        xs[pointerRecordCount] = x;
+        ys[pointerRecordCount] = y;
+        pointerRecordCount++;
+        return true;
+    }
+
+    /**
+     * 记录布局在手指抬起时计算出的速度
+     * @param eventTime 事件时间，单位毫秒
+     * @param velocity 速度，单位像素每秒，向右为正
+     */
+    public boolean recordReleaseVelocity(long eventTime, float velocity) {
+        return record(eventTime, ACTION_RELEASE_VELOCITY, 0, velocity, 0f);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getLeftMenuWidth() {
+        return leftMenuWidth;
+    }
+
+    public int getRightMenuWidth() {
+        return rightMenuWidth;
+    }
+
+    public int getTouchSlop() {
+        return touchSlop;
+    }
+
+    public float getSnapVelocity() {
+        return snapVelocity;
+    }
+
+    public int getEdgeSize() {
+        return edgeSize;
+    }
+
+    public float getLockAngle() {
+        return lockAngle;
+    }
+
+    public int getInitialOffset() {
+        return initialOffset;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * 第event个事件相对第一个事件的时间，单位毫秒
+     */
+    public int getTime(int event) {
+        return times[event];
+    }
+
+    public int getAction(int event) {
+        return actions[event];
+    }
+
+    public int getActionIndex(int event) {
+        return actionIndexes[event];
+    }
+
+    public int getPointerCount(int event) {
+        return pointerCounts[event];
+    }
+
+    public int getPointerId(int event, int index) {
+        return pointerIds[pointerStarts[event] + index];
+    }
+
+    public float getX(int event, int index) {
+        return xs[pointerStarts[event] + index];
+    }
+
+    public float getY(int event, int index) {
+        return ys[pointerStarts[event] + index];
+    }
+
+    /**
+     * 查找指定id的手指在第event个事件中的下标
+     * @return 找不到时返回-1
+     */
+    public int findPointerIndex(int event, int pointerId) {
+        int count = pointerCounts[event];
+        for (int i = 0; i < count; i++) {
+            if (pointerIds[pointerStarts[event] + i] == pointerId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按二进制格式写出，不会关闭输出流
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(width);
+        out.writeInt(leftMenuWidth);
+        out.writeInt(rightMenuWidth);
+        out.writeInt(touchSlop);
+        out.writeFloat(snapVelocity);
+        out.writeInt(edgeSize);
+        out.writeFloat(lockAngle);
+        out.writeInt(initialOffset);
+        out.writeInt(eventCount);
+        for (int event = 0; event < eventCount; event++) {
+            out.writeInt(times[event]);
+            out.writeByte(actions[event]);
+            out.writeByte(actionIndexes[event]);
+            out.writeByte(pointerCounts[event]);
+            for (int i = 0; i < pointerCounts[event]; i++) {
+                int p = pointerStarts[event] + i;
+                out.writeByte(pointerIds[p]);
+                out.writeFloat(xs[p]);
+                out.writeFloat(ys[p]);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 读取writeTo写出的录制结果，不会关闭输入流
+     * @throws IOException 读取失败，或者文件不是录制结果、版本不支持、事件数或手指数超出范围
+     */
+    public static GestureRecording readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a gesture recording");
+        }
+        int version = in.readByte();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("unsupported gesture recording version " + version);
+        }
+        int width = in.readInt();
+        int leftMenuWidth = in.readInt();
+        int rightMenuWidth = in.readInt();
+        int touchSlop = in.readInt();
+        float snapVelocity = in.readFloat();
+        int edgeSize = 0;
+        float lockAngle = SlideCore.DEFAULT_LOCK_ANGLE;
+        if (version >= 2) {
+            edgeSize = in.readInt();
+            lockAngle = in.readFloat();
+        }
+        int initialOffset = in.readInt();
+        int eventCount = in.readInt();
+        if (eventCount < 0 || eventCount > MAX_FILE_EVENTS) {
+            throw new IOException("corrupt gesture recording: " + eventCount + " events");
+        }
+        GestureRecording recording = new GestureRecording(eventCount, eventCount * MAX_POINTERS);
+        recording.begin(width, leftMenuWidth, rightMenuWidth, touchSlop, snapVelocity,
+                edgeSize, lockAngle, initialOffset);
+        int[] ids = new int[MAX_POINTERS];
+        float[] x = new float[MAX_POINTERS];
+        float[] y = new float[MAX_POINTERS];
+        for (int event = 0; event < eventCount; event++) {
+            int time = in.readInt();
+            int action = in.readByte();
+            int actionIndex = in.readByte();
+            int pointerCount = in.readByte();
+            if (pointerCount <= 0 || pointerCount > MAX_POINTERS
+                    || actionIndex < 0 || actionIndex >= pointerCount) {
+                throw new IOException("corrupt gesture recording: event " + event + " has "
+                        + pointerCount + " pointers, action index " + actionIndex);
+            }
+            for (int i = 0; i < pointerCount; i++) {
+                ids[i] = in.readByte();
+                x[i] = in.readFloat();
+                y[i] = in.readFloat();
+            }
+            recording.record(time, action, actionIndex, pointerCount, ids, x, y);
+        }
+        return recording;
+    }
+}
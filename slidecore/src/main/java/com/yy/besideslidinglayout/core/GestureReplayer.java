@@ -0,0 +1,324 @@
+package com.yy.besideslidinglayout.core;
+
+/**
+ * 在虚拟时钟下把GestureRecording重新送入SlideCore和SlideSpring。事件通过与BesideSlidingLayout相同的
+ * SlideGesture处理，拖动的偏移量每帧最多生效一次，松手后由弹簧动画逐帧回到最终位置。
+ * 结果与设备无关，可以在JVM测试中重现线上的手势
+ */
+public class GestureReplayer {
+
+    /**
+     * 60Hz屏幕的帧间隔，单位纳秒
+     */
+    public static final long FRAME_INTERVAL_60HZ = 16666667L;
+
+    /**
+     * 最后一个事件之后最多再模拟的帧数，防止动画无法结束时死循环
+     */
+    private static final int MAX_TRAILING_FRAMES = 600;
+
+    /**
+     * 录制中没有松手速度时，用最后这段时间内的移动估算速度，单位毫秒
+     */
+    private static final int VELOCITY_WINDOW = 100;
+
+    /**
+     * 一次重放的结果
+     */
+    public static class Result {
+
+        /**
+         * 最终的滑动状态、菜单显示状态和主界面偏移量
+         */
+        public int slideState;
+        public boolean leftMenuVisible;
+        public boolean rightMenuVisible;
+        public int contentOffset;
+
+        /**
+         * 主界面移动或者动画进行中的每一帧的偏移量
+         */
+        public int[] frameOffsets;
+
+        /**
+         * 模拟的总帧数
+         */
+        public int frameCount;
+
+        /**
+         * 主界面偏移量实际更新的次数，每次更新对应一次translationX的设置和重绘
+         */
+        public int offsetUpdates;
+
+        /**
+         * 菜单显示状态切换的次数，每次切换对应一次setVisibility
+         */
+        public int menuVisibilityChanges;
+
+        /**
+         * 重绘的总次数
+         */
+        public int getInvalidateCount() {
+            return offsetUpdates + menuVisibilityChanges;
+        }
+    }
+
+    private final long frameIntervalNanos;
+
+    private SlideCore core;
+    private SlideGesture gesture;
+    private SlideSpring spring;
+    private GestureRecording recording;
+
+    /**
+     * 正在处理的事件的下标，recordedEvent读取的就是这个事件
+     */
+    private int event;
+    private final RecordedEvent recordedEvent = new RecordedEvent();
+    private float releaseVelocity;
+    private boolean hasReleaseVelocity;
+    private boolean dragPending;
+    private int appliedOffset;
+
+    private int[] frameOffsets;
+    private int movingFrames;
+    private Result result;
+
+    public GestureReplayer() {
+        this(FRAME_INTERVAL_60HZ);
+    }
+
+    /**
+     * @param frameIntervalNanos 虚拟时钟的帧间隔，单位纳秒
+     */
+    public GestureReplayer(long frameIntervalNanos) {
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * 重放一段录制
+     * @param recording 录制结果
+     * @return 重放结果
+     */
+    public Result replay(GestureRecording recording) {
+        this.recording = recording;
+        core = new SlideCore();
+        core.setTouchSlop(recording.getTouchSlop());
+        core.setSnapVelocity(recording.getSnapVelocity());
+        core.setWidth(recording.getWidth());
+        core.setEdgeSize(recording.getEdgeSize());
+        core.setLockAngle(recording.getLockAngle());
+        core.setMenuWidths(recording.getLeftMenuWidth(), recording.getRightMenuWidth());
+        core.finishSlide(recording.getInitialOffset());
+        gesture = new SlideGesture(core, new ReplayCallback());
+        spring = new SlideSpring();
+        appliedOffset = core.getContentOffset();
+        hasReleaseVelocity = false;
+        dragPending = false;
+        frameOffsets = new int[64];
+        movingFrames = 0;
+        result = new Result();
+
+        long frameTime = 0;
+        for (event = 0; event < recording.getEventCount(); event++) {
+            long eventTime = recording.getTime(event) * 1000000L;
+            while (frameTime <= eventTime) {
+                runFrame(frameTime);
+                frameTime += frameIntervalNanos;
+            }
+            handleEvent();
+        }
+        for (int i = 0; i < MAX_TRAILING_FRAMES && (spring.isRunning() || dragPending); i++) {
+            runFrame(frameTime);
+            frameTime += frameIntervalNanos;
+        }
+
+        result.slideState = core.getSlideState();
+        result.leftMenuVisible = core.isLeftMenuVisible();
+        result.rightMenuVisible = core.isRightMenuVisible();
+        result.contentOffset = core.getContentOffset();
+        result.frameOffsets = new int[movingFrames];
+        System.arraycopy(frameOffsets, 0, result.frameOffsets, 0, movingFrames);
+        return result;
+    }
+
+    private void runFrame(long frameTimeNanos) {
+        result.frameCount++;
+        boolean moving = spring.isRunning() || dragPending;
+        if (spring.isRunning()) {
+            if (spring.computeOffset(frameTimeNanos)) {
+                core.setContentOffset(spring.getValue());
+            } else {
+                core.finishSlide(spring.getValue());
+            }
+        }
+        dragPending = false;
+        applyOffset();
+        if (moving) {
+            if (movingFrames == frameOffsets.length) {
+                int[] grown = new int[movingFrames * 2];
+                System.arraycopy(frameOffsets, 0, grown, 0, movingFrames);
+                frameOffsets = grown;
+            }
+            frameOffsets[movingFrames++] = appliedOffset;
+        }
+    }
+
+    private void applyOffset() {
+        if (core.getContentOffset() != appliedOffset) {
+            appliedOffset = core.getContentOffset();
+            result.offsetUpdates++;
+        }
+    }
+
+    /**
+     * 按BesideSlidingLayout.onTouchEvent的方式把当前事件交给SlideGesture，录制的松手速度只记录下来
+     */
+    private void handleEvent() {
+        switch (recording.getAction(event)) {
+            case GestureRecording.ACTION_DOWN:
+                gesture.onDown(recordedEvent);
+                break;
+            case GestureRecording.ACTION_MOVE:
+                gesture.onMove(recordedEvent);
+                break;
+            case GestureRecording.ACTION_POINTER_DOWN:
+                gesture.onPointerDown(recordedEvent);
+                break;
+            case GestureRecording.ACTION_POINTER_UP:
+                gesture.onPointerUp(recordedEvent);
+                break;
+            case GestureRecording.ACTION_RELEASE_VELOCITY:
+                releaseVelocity = recording.getX(event, 0);
+                hasReleaseVelocity = true;
+                break;
+            case GestureRecording.ACTION_UP:
+                gesture.onUp(recordedEvent);
+                break;
+            case GestureRecording.ACTION_CANCEL:
+                gesture.onCancel();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void animateTo(int target, float velocity) {
+        if (!spring.start(core.getContentOffset(), target, velocity)) {
+            core.finishSlide(target);
+            applyOffset();
+        }
+    }
+
+    /**
+     * 用活动手指在最后VELOCITY_WINDOW毫秒内的移动估算松手速度
+     * @param upEvent ACTION_UP事件的下标
+     * @return 速度，单位像素每秒
+     */
+    private float estimateVelocity(int upEvent) {
+        int activePointerId = gesture.getActivePointerId();
+        int upIndex = recording.findPointerIndex(upEvent, activePointerId);
+        if (upIndex < 0) {
+            return 0f;
+        }
+        int upTime = recording.getTime(upEvent);
+        float upX = recording.getX(upEvent, upIndex);
+        for (int event = upEvent - 1; event >= 0; event--) {
+            int time = recording.getTime(event);
+            int index = recording.findPointerIndex(event, activePointerId);
+            if (index < 0 || recording.getAction(event) == GestureRecording.ACTION_RELEASE_VELOCITY) {
+                continue;
+            }
+            if (upTime - time >= VELOCITY_WINDOW || recording.getAction(event) == GestureRecording.ACTION_DOWN) {
+                return time == upTime ? 0f : (upX - recording.getX(event, index)) * 1000f / (upTime - time);
+            }
+        }
+        return 0f;
+    }
+
+    /**
+     * 把录制中的当前事件作为SlideGesture.Event读取
+     */
+    private class RecordedEvent implements SlideGesture.Event {
+
+        @Override
+        public int getPointerCount() {
+            return recording.getPointerCount(event);
+        }
+
+        @Override
+        public int getActionIndex() {
+            return recording.getActionIndex(event);
+        }
+
+        @Override
+        public int getPointerId(int index) {
+            return recording.getPointerId(event, index);
+        }
+
+        @Override
+        public int findPointerIndex(int pointerId) {
+            return recording.findPointerIndex(event, pointerId);
+        }
+
+        @Override
+        public float getX(int index) {
+            return recording.getX(event, index);
+        }
+
+        @Override
+        public float getY(int index) {
+            return recording.getY(event, index);
+        }
+
+        @Override
+        public long getEventTime() {
+            return recording.getTime(event);
+        }
+    }
+
+    /**
+     * 在虚拟时钟下完成SlideGesture需要的动作，对应BesideSlidingLayout中的处理
+     */
+    private class ReplayCallback implements SlideGesture.Callback {
+
+        @Override
+        public void onGestureDown(float x) {
+            hasReleaseVelocity = false;
+        }
+
+        @Override
+        public void onSettleCaught() {
+            spring.cancel();
+        }
+
+        @Override
+        public void onSlideStarted(int state, long eventTime) {
+            if (state == SlideCore.SHOW_LEFT_MENU || state == SlideCore.SHOW_RIGHT_MENU) {
+                //显示一侧菜单并隐藏另一侧菜单
+                result.menuVisibilityChanges += 2;
+            }
+        }
+
+        @Override
+        public void onDragged(long eventTime) {
+            dragPending = core.getContentOffset() != appliedOffset;
+        }
+
+        @Override
+        public float computeReleaseVelocity(long eventTime) {
+            return hasReleaseVelocity ? releaseVelocity : estimateVelocity(event);
+        }
+
+        @Override
+        public void onRelease(float velocity) {
+            animateTo(core.getSettleTarget(velocity), velocity);
+        }
+
+        @Override
+        public void onOpenedContentTapped(boolean leftMenuVisible) {
+            core.beginSlide(leftMenuVisible ? SlideCore.HIDE_LEFT_MENU : SlideCore.HIDE_RIGHT_MENU);
+            animateTo(0, 0f);
+        }
+    }
+}
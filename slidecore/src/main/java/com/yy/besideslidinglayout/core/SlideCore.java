@@ -0,0 +1,568 @@
+package com.yy.besideslidinglayout.core;
+
+/**
+ * 双向滑动菜单的手势状态机以及主界面偏移量的计算，不依赖Android，可以直接在JVM上测试。
+ * 所有状态都保存在基本类型的字段中，处理事件时不会创建任何对象。
+ * 偏移量大于0表示主界面向右移动露出左侧菜单，小于0表示向左移动露出右侧菜单
+ */
+public class SlideCore {
+
+    /**
+     * 滑动状态的一种，表示未进行任何滑动
+     */
+    public static final int DO_NOTHING = 0;
+
+    /**
+     * 滑动状态的一种，表示正在滑出左侧菜单
+     */
+    public static final int SHOW_LEFT_MENU = 1;
+
+    /**
+     * 滑动状态的一种，表示正在滑出右侧菜单
+     */
+    public static final int SHOW_RIGHT_MENU = 2;
+
+    /**
+     * 滑动状态的一种，表示正在隐藏左侧菜单
+     */
+    public static final int HIDE_LEFT_MENU = 3;
+
+    /**
+     * 滑动状态的一种，表示正在隐藏右侧菜单
+     */
+    public static final int HIDE_RIGHT_MENU = 4;
+
+    /**
+     * 默认的方向锁定角度，手指移动方向与水平方向的夹角不超过此值才算横向滑动，单位度
+     */
+    public static final float DEFAULT_LOCK_ANGLE = 30f;
+
+    /**
+     * 在判断为滚动之前手指可以移动的最大值
+     */
+    private int touchSlop;
+
+    /**
+     * 松手时判定为快速滑动的速度，单位像素每秒
+     */
+    private float snapVelocity;
+
+    /**
+     * 左右菜单的宽度，即主界面在两个方向上最多能偏移的距离
+     */
+    private int leftMenuWidth;
+    private int rightMenuWidth;
+
+    /**
+     * 左右菜单是否存在。还没有加载的菜单宽度为0，但是滑动开始时会被加载，仍然可以滑出
+     */
+    private boolean leftMenuPresent;
+    private boolean rightMenuPresent;
+
+    /**
+     * 布局的宽度，用于判断按下的位置是否在右侧边缘区域内
+     */
+    private int width;
+
+    /**
+     * 菜单都关闭时，只有在距离左右边缘小于此值的位置按下才能滑出该侧菜单，0表示不限制
+     */
+    private int edgeSize;
+
+    /**
+     * 方向锁定角度及其正切值
+     */
+    private float lockAngle = DEFAULT_LOCK_ANGLE;
+    private float lockSlope = (float) Math.tan(Math.toRadians(DEFAULT_LOCK_ANGLE));
+
+    private int slideState;
+    private boolean isSliding;
+    private boolean isLeftMenuVisible;
+    private boolean isRightMenuVisible;
+    private int contentOffset;
+
+    /**
+     * 本次手势已经被判定为与菜单无关（纵向滑动或者从边缘区域之外开始），手指抬起之前不再检查
+     */
+    private boolean isGestureIgnored;
+
+    /**
+     * 本次手势是否可以滑出左侧或右侧菜单，由按下的位置是否在对应的边缘区域内决定
+     */
+    private boolean canOpenLeftMenu;
+    private boolean canOpenRightMenu;
+
+    /**
+     * 手指按下时的坐标
+     */
+    private float xDown;
+    private float yDown;
+
+    /**
+     * 手指移动时的坐标
+     */
+    private float xMove;
+    private float yMove;
+
+    public void setTouchSlop(int touchSlop) {
+        this.touchSlop = touchSlop;
+    }
+
+    public int getTouchSlop() {
+        return touchSlop;
+    }
+
+    public void setSnapVelocity(float snapVelocity) {
+        this.snapVelocity = snapVelocity;
+    }
+
+    public float getSnapVelocity() {
+        return snapVelocity;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 设置可以滑出菜单的边缘区域的宽度
+     * @param edgeSize 宽度，单位像素，0表示在任意位置按下都可以滑出菜单
+     */
+    public void setEdgeSize(int edgeSize) {
+        this.edgeSize = edgeSize;
+    }
+
+    public int getEdgeSize() {
+        return edgeSize;
+    }
+
+    /**
+     * 设置方向锁定角度，手指移动方向与水平方向的夹角超过此值的手势被判定为纵向滑动，
+     * 之后直到手指抬起都不再检查
+     * @param degrees 角度，单位度，取值范围(0, 90)
+     */
+    public void setLockAngle(float degrees) {
+        lockAngle = degrees;
+        lockSlope = (float) Math.tan(Math.toRadians(degrees));
+    }
+
+    public float getLockAngle() {
+        return lockAngle;
+    }
+
+    /**
+     * 设置左右菜单的宽度。当前偏移量按占菜单宽度的比例换算到新的宽度上，
+     * 完全显示的菜单在尺寸变化后仍然完全显示，关闭的菜单仍然关闭
+     * @param leftMenuWidth 左侧菜单宽度
+     * @param rightMenuWidth 右侧菜单宽度
+     */
+    public void setMenuWidths(int leftMenuWidth, int rightMenuWidth) {
+        if (contentOffset > 0 && this.leftMenuWidth > 0 && leftMenuWidth != this.leftMenuWidth) {
+            contentOffset = Math.round((float) contentOffset * leftMenuWidth / this.leftMenuWidth);
+        } else if (contentOffset < 0 && this.rightMenuWidth > 0 && rightMenuWidth != this.rightMenuWidth) {
+            contentOffset = Math.round((float) contentOffset * rightMenuWidth / this.rightMenuWidth);
+        }
+        this.leftMenuWidth = leftMenuWidth;
+        this.rightMenuWidth = rightMenuWidth;
+        contentOffset = clampOffset(contentOffset);
+    }
+
+    /**
+     * 设置左右菜单是否存在，与菜单的宽度无关。还没有加载、宽度为0的菜单也应该设置为存在，
+     * 滑动开始后加载并设置宽度即可。宽度大于0的菜单总是视为存在
+     * @param leftMenuPresent 左侧菜单是否存在
+     * @param rightMenuPresent 右侧菜单是否存在
+     */
+    public void setMenusPresent(boolean leftMenuPresent, boolean rightMenuPresent) {
+        this.leftMenuPresent = leftMenuPresent;
+        this.rightMenuPresent = rightMenuPresent;
+    }
+
+    /**
+     * 是否可以滑出左侧菜单
+     */
+    public boolean hasLeftMenu() {
+        return leftMenuPresent || leftMenuWidth > 0;
+    }
+
+    /**
+     * 是否可以滑出右侧菜单
+     */
+    public boolean hasRightMenu() {
+        return rightMenuPresent || rightMenuWidth > 0;
+    }
+
+    /**
+     * 主界面偏移量占露出的菜单宽度的比例
+     * @return 左侧菜单露出时在(0, 1]之间，右侧菜单露出时在[-1, 0)之间，菜单都关闭时为0
+     */
+    public float getOffsetFraction() {
+        if (contentOffset > 0) {
+            return (float) contentOffset / leftMenuWidth;
+        } else if (contentOffset < 0) {
+            return (float) contentOffset / rightMenuWidth;
+        }
+        return 0f;
+    }
+
+    public int getLeftMenuWidth() {
+        return leftMenuWidth;
+    }
+
+    public int getRightMenuWidth() {
+        return rightMenuWidth;
+    }
+
+    public int getSlideState() {
+        return slideState;
+    }
+
+    public boolean isSliding() {
+        return isSliding;
+    }
+
+    /**
+     * 本次手势是否已经被判定为与菜单无关，此时直到下一次按下都不需要再把事件交给本类处理
+     */
+    public boolean isGestureIgnored() {
+        return isGestureIgnored;
+    }
+
+    /**
+     * 左侧菜单是否完全显示出来，滑动过程中此值无效
+     */
+    public boolean isLeftMenuVisible() {
+        return isLeftMenuVisible;
+    }
+
+    /**
+     * 右侧菜单是否完全显示出来，滑动过程中此值无效
+     */
+    public boolean isRightMenuVisible() {
+        return isRightMenuVisible;
+    }
+
+    public int getContentOffset() {
+        return contentOffset;
+    }
+
+    /**
+     * 设置主界面的偏移量，超出菜单范围的部分会被截掉
+     * @param offset 主界面的偏移量
+     */
+    public void setContentOffset(int offset) {
+        contentOffset = clampOffset(offset);
+    }
+
+    public float getDownX() {
+        return xDown;
+    }
+
+    public float getLastX() {
+        return xMove;
+    }
+
+    /**
+     * 手指按下，记录按下的坐标并把滑动状态重置为无动作。菜单都关闭并且限制了边缘区域时，
+     * 在边缘区域之外按下的手势直接判定为与菜单无关
+     * @param x 横坐标
+     * @param y 纵坐标
+     */
+    public void onDown(float x, float y) {
+        xDown = x;
+        yDown = y;
+        xMove = x;
+        yMove = y;
+        slideState = DO_NOTHING;
+        canOpenLeftMenu = hasLeftMenu() && (edgeSize <= 0 || x < edgeSize);
+        canOpenRightMenu = hasRightMenu() && (edgeSize <= 0 || x >= width - edgeSize);
+        isGestureIgnored = !isLeftMenuVisible && !isRightMenuVisible
+                && !canOpenLeftMenu && !canOpenRightMenu;
+    }
+
+    /**
+     * 手指移动，判断滑动状态并计算主界面的偏移量
+     * @param x 横坐标
+     * @param y 纵坐标
+     * @return 这次移动使滑动开始时返回true，此时可以通过getSlideState得到滑动方向
+     */
+    public boolean onMove(float x, float y) {
+        if (isGestureIgnored) {
+            return false;
+        }
+        xMove = x;
+        yMove = y;
+        int moveDisX = (int) (xMove - xDown);
+        int moveDisY = (int) (yMove - yDown);
+        boolean wasSliding = isSliding;
+        checkSlideState(moveDisX, moveDisY);
+        switch (slideState) {
+            case SHOW_LEFT_MENU:
+                contentOffset = checkLeftMenuBorder(moveDisX);
+                break;
+            case SHOW_RIGHT_MENU:
+                contentOffset = checkRightMenuBorder(moveDisX);
+                break;
+            case HIDE_LEFT_MENU:
+                contentOffset = checkLeftMenuBorder(leftMenuWidth + moveDisX);
+                break;
+            case HIDE_RIGHT_MENU:
+                contentOffset = checkRightMenuBorder(-rightMenuWidth + moveDisX);
+                break;
+            default:
+                break;
+        }
+        return !wasSliding && isSliding;
+    }
+
+    /**
+     * 回弹动画进行中手指按下，停在当前位置并从这里开始跟随手指，不改变滑动方向
+     * @param x 横坐标
+     * @param y 纵坐标
+     */
+    public void catchSlide(float x, float y) {
+        isSliding = true;
+        isGestureIgnored = false;
+        if (slideState == DO_NOTHING) {
+            slideState = contentOffset < 0 ? SHOW_RIGHT_MENU : SHOW_LEFT_MENU;
+        }
+        //按onMove中各个方向计算偏移量的方式反推按下的坐标，使接下来的移动从当前位置开始
+        switch (slideState) {
+            case HIDE_LEFT_MENU:
+                xDown = x - (contentOffset - leftMenuWidth);
+                break;
+            case HIDE_RIGHT_MENU:
+                xDown = x - (contentOffset + rightMenuWidth);
+                break;
+            default:
+                xDown = x - contentOffset;
+                break;
+        }
+        yDown = y;
+        xMove = x;
+        yMove = y;
+    }
+
+    /**
+     * 切换跟随的手指时平移按下的坐标，使移动距离保持连续，主界面不会跳动
+     * @param x 新手指的横坐标
+     * @param y 新手指的纵坐标
+     */
+    public void rebase(float x, float y) {
+        xDown += x - xMove;
+        yDown += y - yMove;
+        xMove = x;
+        yMove = y;
+    }
+
+    /**
+     * 判断手指抬起时是否只是一次点击
+     * @param x 抬起时的横坐标
+     * @return 横向移动距离小于touchSlop时返回true
+     */
+    public boolean isTap(float x) {
+        return Math.abs((int) (x - xDown)) < touchSlop;
+    }
+
+    /**
+     * 判断菜单显示时手指是否落在露出的主界面上
+     * @param x 横坐标
+     * @param width 主界面的宽度
+     * @return 左侧或右侧菜单显示并且x位于主界面范围内时返回true
+     */
+    public boolean isTouchOnOpenedContent(float x, int width) {
+        if (isLeftMenuVisible) {
+            return x >= contentOffset;
+        } else if (isRightMenuVisible) {
+            return x < width + contentOffset;
+        }
+        return false;
+    }
+
+    /**
+     * 不经过手势直接进入滑动状态，用于代码调用的滚动。已经在滑动中则保持原来的状态
+     * @param state 滑动状态
+     */
+    public void beginSlide(int state) {
+        if (!isSliding) {
+            isSliding = true;
+            slideState = state;
+        }
+    }
+
+    /**
+     * 按距离移动主界面，用于嵌套滚动中子布局传过来的横向距离。不在滑动中时按移动方向和当前位置进入滑动状态，
+     * 之后只在该方向的菜单范围内移动，菜单完全露出或者完全关闭后不再消耗距离。不受边缘区域的限制。
+     * 菜单还没有加载、宽度为0时进入滑动状态但不移动，加载并设置宽度后再次调用即可移动
+     * @param dx 横向移动的距离，与手指移动方向一致，向右为正
+     * @return 主界面实际移动的距离
+     */
+    public int scrollBy(int dx) {
+        if (dx == 0) {
+            return 0;
+        }
+        if (!isSliding) {
+            int state = DO_NOTHING;
+            if (contentOffset > 0) {
+                state = dx < 0 ? HIDE_LEFT_MENU : DO_NOTHING;
+            } else if (contentOffset < 0) {
+                state = dx > 0 ? HIDE_RIGHT_MENU : DO_NOTHING;
+            } else if (dx > 0 && hasLeftMenu()) {
+                state = SHOW_LEFT_MENU;
+            } else if (dx < 0 && hasRightMenu()) {
+                state = SHOW_RIGHT_MENU;
+            }
+            if (state == DO_NOTHING) {
+                return 0;
+            }
+            isSliding = true;
+            slideState = state;
+        }
+        int oldOffset = contentOffset;
+        switch (slideState) {
+            case SHOW_LEFT_MENU:
+            case HIDE_LEFT_MENU:
+                contentOffset = checkLeftMenuBorder(contentOffset + dx);
+                break;
+            case SHOW_RIGHT_MENU:
+            case HIDE_RIGHT_MENU:
+                contentOffset = checkRightMenuBorder(contentOffset + dx);
+                break;
+            default:
+                break;
+        }
+        return contentOffset - oldOffset;
+    }
+
+    /**
+     * 手指离开时根据当前滑动状态和速度计算主界面最终应该停留的位置
+     * @param velocity 松手时的速度，单位像素每秒，向右为正
+     * @return 最终的偏移量
+     */
+    public int getSettleTarget(float velocity) {
+        switch (slideState) {
+            case SHOW_LEFT_MENU:
+            case HIDE_LEFT_MENU:
+                return shouldScrollToLeftMenu(velocity) ? leftMenuWidth : 0;
+            case SHOW_RIGHT_MENU:
+            case HIDE_RIGHT_MENU:
+                return shouldScrollToRightMenu(velocity) ? -rightMenuWidth : 0;
+            default:
+                return contentOffset;
+        }
+    }
+
+    /**
+     * 主界面停在最终位置，结束滑动并更新菜单的显示状态
+     * @param offset 最终的偏移量
+     */
+    public void finishSlide(int offset) {
+        contentOffset = clampOffset(offset);
+        isLeftMenuVisible = contentOffset > 0;
+        isRightMenuVisible = contentOffset < 0;
+        isSliding = false;
+    }
+
+    /**
+     * 判断是否应该显示左边菜单
+     * @param velocity 松手时的速度，单位像素每秒
+     * @return 松手速度超过阈值时按速度方向判断，否则主界面越过左菜单的一半则返回true
+     */
+    public boolean shouldScrollToLeftMenu(float velocity) {
+        if (Math.abs(velocity) > snapVelocity) {
+            return velocity > 0;
+        }
+        return contentOffset > leftMenuWidth / 2;
+    }
+
+    /**
+     * 判断是否应该显示右边菜单
+     * @param velocity 松手时的速度，单位像素每秒
+     * @return 松手速度超过阈值时按速度方向判断，否则主界面越过右菜单的一半则返回true
+     */
+    public boolean shouldScrollToRightMenu(float velocity) {
+        if (Math.abs(velocity) > snapVelocity) {
+            return velocity < 0;
+        }
+        return -contentOffset > rightMenuWidth / 2;
+    }
+
+    /**
+     * 滑动过程中检查左侧菜单边界值，防止主界面滑出屏幕
+     * @param offset 主界面的偏移量
+     * @return 限制在[0, 左侧菜单宽度]之间的偏移量
+     */
+    public int checkLeftMenuBorder(int offset) {
+        if (offset < 0) {
+            return 0;
+        } else if (offset > leftMenuWidth) {
+            return leftMenuWidth;
+        }
+        return offset;
+    }
+
+    /**
+     * 检查右侧边界值防止滑出屏幕
+     * @param offset 主界面的偏移量
+     * @return 限制在[-右侧菜单宽度, 0]之间的偏移量
+     */
+    public int checkRightMenuBorder(int offset) {
+        if (offset > 0) {
+            return 0;
+        } else if (offset < -rightMenuWidth) {
+            return -rightMenuWidth;
+        }
+        return offset;
+    }
+
+    /**
+     * 把偏移量限制在[-右侧菜单宽度, 左侧菜单宽度]之间
+     * @param offset 主界面的偏移量
+     * @return 限制后的偏移量
+     */
+    public int clampOffset(int offset) {
+        return Math.max(-rightMenuWidth, Math.min(offset, leftMenuWidth));
+    }
+
+    /**
+     * 根据手指移动的距离判断当前滑动意图，然后赋值给slideState。
+     * 移动距离超过touchSlop后按移动方向与水平方向的夹角锁定方向，纵向的手势不再检查
+     * @param moveDisX 横向移动的距离
+     * @param moveDisY 纵向移动的距离
+     */
+    private void checkSlideState(int moveDisX, int moveDisY) {
+        if (isSliding) {
+            return;
+        }
+        int absX = Math.abs(moveDisX);
+        int absY = Math.abs(moveDisY);
+        if (absX < touchSlop && absY < touchSlop) {
+            return;
+        }
+        if (absY > absX * lockSlope) {
+            isGestureIgnored = true;
+            return;
+        }
+        if (isLeftMenuVisible) {
+            if (moveDisX < 0) {
+                isSliding = true;
+                slideState = HIDE_LEFT_MENU;
+            }
+        } else if (isRightMenuVisible) {
+            if (moveDisX > 0) {
+                isSliding = true;
+                slideState = HIDE_RIGHT_MENU;
+            }
+        } else if (moveDisX > 0 ? canOpenLeftMenu : canOpenRightMenu) {
+            isSliding = true;
+            slideState = moveDisX < 0 ? SHOW_RIGHT_MENU : SHOW_LEFT_MENU;
+        } else {
+            //从一侧边缘区域向反方向滑动，不会滑出任何菜单
+            isGestureIgnored = true;
+        }
+    }
+}
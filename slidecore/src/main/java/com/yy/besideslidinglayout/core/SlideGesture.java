@@ -0,0 +1,202 @@
+package com.yy.besideslidinglayout.core;
+
+/**
+ * 把触摸事件转换为SlideCore的调用：跟随一根活动手指并在手指切换时保持移动距离连续，
+ * 回弹过程中按下时接住主界面，判定为滑动时通知显示菜单，松手时按速度结束滑动，
+ * 菜单显示时点击主界面则关闭菜单。
+ * BesideSlidingLayout和GestureReplayer使用同一个实例处理事件，重放的结果与设备上的处理方式一致。
+ * 事件通过Event接口读取，处理过程中不会创建任何对象
+ */
+public class SlideGesture {
+
+    /**
+     * 没有活动手指，与android.view.MotionEvent.INVALID_POINTER_ID一致
+     */
+    public static final int INVALID_POINTER_ID = -1;
+
+    /**
+     * 一个触摸事件，方法与android.view.MotionEvent中的同名方法一致
+     */
+    public interface Event {
+
+        int getPointerCount();
+
+        int getActionIndex();
+
+        int getPointerId(int index);
+
+        int findPointerIndex(int pointerId);
+
+        float getX(int index);
+
+        float getY(int index);
+
+        /**
+         * 事件时间，单位毫秒
+         */
+        long getEventTime();
+    }
+
+    /**
+     * 手势需要由使用者完成的动作，均在处理事件的线程中同步调用
+     */
+    public interface Callback {
+
+        /**
+         * 手指按下，菜单都关闭或者主界面正在回弹时同样调用
+         * @param x 按下位置的横坐标
+         */
+        void onGestureDown(float x);
+
+        /**
+         * 回弹过程中按下，主界面接下来跟随手指，需要立即停止回弹动画
+         */
+        void onSettleCaught();
+
+        /**
+         * 手势判定为滑动，需要显示即将露出的菜单。以ViewStub声明的菜单在此时加载并设置宽度
+         * @param state 滑动状态
+         * @param eventTime 触发滑动的事件时间，单位毫秒
+         */
+        void onSlideStarted(int state, long eventTime);
+
+        /**
+         * 滑动中手指移动，主界面的偏移量可能改变了
+         * @param eventTime 移动事件的时间，单位毫秒
+         */
+        void onDragged(long eventTime);
+
+        /**
+         * 滑动中手指抬起，计算松手时的速度
+         * @param eventTime 抬起事件的时间，单位毫秒
+         * @return 速度，单位像素每秒，向右为正
+         */
+        float computeReleaseVelocity(long eventTime);
+
+        /**
+         * 滑动中手指抬起或者手势被取消，需要按速度滚动到最终位置
+         * @param velocity 松手时的速度，单位像素每秒，向右为正，取消时为0
+         */
+        void onRelease(float velocity);
+
+        /**
+         * 菜单显示时点击了露出的主界面，需要关闭菜单
+         * @param leftMenuVisible 显示的是左侧菜单时为true，右侧菜单时为false
+         */
+        void onOpenedContentTapped(boolean leftMenuVisible);
+    }
+
+    private final SlideCore core;
+    private final Callback callback;
+
+    private int activePointerId = INVALID_POINTER_ID;
+
+    public SlideGesture(SlideCore core, Callback callback) {
+        this.core = core;
+        this.callback = callback;
+    }
+
+    /**
+     * 正在跟随的手指id，没有时为INVALID_POINTER_ID
+     */
+    public int getActivePointerId() {
+        return activePointerId;
+    }
+
+    /**
+     * 第一根手指按下，跟随这根手指。正在滑动中（回弹或者滚动）时让主界面停在当前位置跟随手指，否则记录按下的坐标
+     * @param event ACTION_DOWN事件
+     */
+    public void onDown(Event event) {
+        activePointerId = event.getPointerId(0);
+        float x = event.getX(0);
+        float y = event.getY(0);
+        callback.onGestureDown(x);
+        if (core.isSliding()) {
+            callback.onSettleCaught();
+            core.catchSlide(x, y);
+            return;
+        }
+        core.onDown(x, y);
+    }
+
+    /**
+     * 手指移动，判断滑动状态并计算主界面的偏移量。批量事件中只取最新的一个点
+     * @param event ACTION_MOVE事件
+     */
+    public void onMove(Event event) {
+        int index = event.findPointerIndex(activePointerId);
+        if (index < 0) {
+            return;
+        }
+        float x = event.getX(index);
+        float y = event.getY(index);
+        if (core.onMove(x, y)) {
+            callback.onSlideStarted(core.getSlideState(), event.getEventTime());
+            //以ViewStub声明的菜单刚刚加载，按加载后的宽度重新计算这一次移动的偏移量
+            core.onMove(x, y);
+        }
+        if (core.getSlideState() != SlideCore.DO_NOTHING) {
+            callback.onDragged(event.getEventTime());
+        }
+    }
+
+    /**
+     * 新的手指按下，改为跟随新的手指，并保持已经移动的距离不变
+     * @param event ACTION_POINTER_DOWN事件
+     */
+    public void onPointerDown(Event event) {
+        int index = event.getActionIndex();
+        activePointerId = event.getPointerId(index);
+        core.rebase(event.getX(index), event.getY(index));
+    }
+
+    /**
+     * 有手指抬起，如果抬起的是正在跟随的手指，则改为跟随剩下的另一根手指
+     * @param event ACTION_POINTER_UP事件
+     */
+    public void onPointerUp(Event event) {
+        int index = event.getActionIndex();
+        if (event.getPointerId(index) == activePointerId && event.getPointerCount() > 1) {
+            int newIndex = index == 0 ? 1 : 0;
+            activePointerId = event.getPointerId(newIndex);
+            core.rebase(event.getX(newIndex), event.getY(newIndex));
+        }
+    }
+
+    /**
+     * 最后一根手指抬起，滑动中则按速度结束滑动，菜单显示时点击主界面则关闭菜单
+     * @param event ACTION_UP事件
+     */
+    public void onUp(Event event) {
+        int index = event.findPointerIndex(activePointerId);
+        float xUp = index < 0 ? core.getLastX() : event.getX(index);
+        if (core.isSliding()) {
+            release(callback.computeReleaseVelocity(event.getEventTime()));
+        } else if (core.isTap(xUp) && core.isTouchOnOpenedContent(core.getDownX(), core.getWidth())) {
+            callback.onOpenedContentTapped(core.isLeftMenuVisible());
+        }
+    }
+
+    /**
+     * 手势被取消，滑动中则按位置结束滑动
+     */
+    public void onCancel() {
+        if (core.isSliding()) {
+            release(0f);
+        }
+    }
+
+    /**
+     * 不再跟随任何手指，用于布局从窗口移除时
+     */
+    public void reset() {
+        activePointerId = INVALID_POINTER_ID;
+    }
+
+    private void release(float velocity) {
+        if (core.getSlideState() != SlideCore.DO_NOTHING) {
+            callback.onRelease(velocity);
+        }
+    }
+}
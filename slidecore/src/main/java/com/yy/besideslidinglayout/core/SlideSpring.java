@@ -0,0 +1,166 @@
+package com.yy.besideslidinglayout.core;
+
+/**
+ * 主界面回弹动画的计算，按临界阻尼弹簧求出任意时刻的位置，与帧率无关。
+ * 以手指抬起时的速度作为初速度，松手时速度不会突变
+ */
+public class SlideSpring {
+
+    /**
+     * 弹簧的固有角频率，单位rad/s，决定回弹的快慢。从静止开始滑过一个菜单宽度大约需要300毫秒
+     */
+    public static final float SPRING_FREQUENCY = 30f;
+
+    /**
+     * 距离终点小于此值并且速度小于REST_VELOCITY时认为动画结束，单位像素
+     */
+    private static final float REST_DISTANCE = 0.5f;
+
+    /**
+     * 判定动画结束的速度，单位像素每秒
+     */
+    private static final float REST_VELOCITY = 30f;
+
+    private float mFrequency = SPRING_FREQUENCY;
+
+    private int mTo;
+    private int mValue;
+
+    /**
+     * 起点相对终点的位移和起始速度（像素每秒）
+     */
+    private float mStartDisplacement;
+    private float mStartVelocity;
+
+    /**
+     * 位移在终点哪一侧时算作还没有到达终点，1表示大于终点的一侧，-1表示小于终点的一侧。
+     * 从终点出发时按初速度判断：沿速度方向离开终点就已经越过了终点
+     */
+    private float mApproachSide;
+
+    /**
+     * 本次动画使用的角频率，动画过程中修改频率不影响正在进行的动画
+     */
+    private float mStartFrequency = SPRING_FREQUENCY;
+
+    /**
+     * 最近一帧的速度，单位像素每秒
+     */
+    private float mVelocity;
+
+    /**
+     * 第一帧的时间戳，小于0表示还未收到第一帧
+     */
+    private long mStartTimeNanos;
+    private boolean mRunning;
+
+    /**
+     * 从from滑动到to
+     * @param from 起始位置
+     * @param to 终点位置
+     * @param velocity 起始速度，单位像素每秒，方向与位置的坐标方向一致
+     * @return 需要逐帧计算时返回true，已经静止在终点时返回false
+     */
+    public boolean start(int from, int to, float velocity) {
+        mTo = to;
+        mValue = from;
+        mVelocity = velocity;
+        if (from == to && Math.abs(velocity) < REST_VELOCITY) {
+            mRunning = false;
+            mValue = to;
+            mVelocity = 0;
+            return false;
+        }
+        mStartDisplacement = from - to;
+        mStartVelocity = velocity;
+        if (from != to) {
+            mApproachSide = Math.signum(mStartDisplacement);
+        } else {
+            mApproachSide = -Math.signum(velocity);
+        }
+        mStartFrequency = mFrequency;
+        mStartTimeNanos = -1;
+        mRunning = true;
+        return true;
+    }
+
+    /**
+     * 设置弹簧的固有角频率，频率越高回弹越快，从下一次start开始生效
+     * @param frequency 角频率，单位rad/s，默认为SPRING_FREQUENCY
+     */
+    public void setFrequency(float frequency) {
+        if (frequency > 0) {
+            mFrequency = frequency;
+        }
+    }
+
+    public float getFrequency() {
+        return mFrequency;
+    }
+
+    /**
+     * 停在当前位置
+     */
+    public void cancel() {
+        mRunning = false;
+        mVelocity = 0;
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * 当前位置
+     */
+    public int getValue() {
+        return mValue;
+    }
+
+    /**
+     * 当前速度，单位像素每秒，动画没有在进行时为0。重新指定终点时以此作为初速度，速度不会突变
+     */
+    public float getVelocity() {
+        return mRunning ? mVelocity : 0;
+    }
+
+    /**
+     * 终点位置
+     */
+    public int getTarget() {
+        return mTo;
+    }
+
+    /**
+     * 计算frameTimeNanos时刻的位置，结果通过getValue获取
+     * @param frameTimeNanos 帧的时间戳，单位纳秒
+     * @return 动画还未结束时返回true，到达终点时返回false并且getValue等于终点
+     */
+    public boolean computeOffset(long frameTimeNanos) {
+        if (!mRunning) {
+            return false;
+        }
+        if (mStartTimeNanos < 0) {
+            //以第一帧的时间作为动画的起点，避免从调用start到第一帧之间的延迟造成跳帧
+            mStartTimeNanos = frameTimeNanos;
+        }
+        float t = (frameTimeNanos - mStartTimeNanos) / 1000000000f;
+        //临界阻尼弹簧：x(t) = (x0 + (v0 + w * x0) * t) * e^(-w * t)
+        float w = mStartFrequency;
+        float b = mStartVelocity + w * mStartDisplacement;
+        float decay = (float) Math.exp(-w * t);
+        float displacement = (mStartDisplacement + b * t) * decay;
+        float velocity = (b - w * (mStartDisplacement + b * t)) * decay;
+        boolean crossed = displacement * mApproachSide < 0;
+        if (crossed || (Math.abs(displacement) < REST_DISTANCE && Math.abs(velocity) < REST_VELOCITY)) {
+            //越过终点时直接停在终点，不产生回弹
+            mRunning = false;
+            mValue = mTo;
+            mVelocity = 0;
+            return false;
+        }
+        mValue = mTo + Math.round(displacement);
+        mVelocity = velocity;
+        return true;
+    }
+}
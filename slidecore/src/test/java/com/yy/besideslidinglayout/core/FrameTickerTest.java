@@ -0,0 +1,115 @@
+package com.yy.besideslidinglayout.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameTickerTest {
+
+    private FrameTicker ticker;
+
+    /**
+     * 记录每一帧的调用，在指定的帧数之后结束
+     */
+    private static class CountingClient implements FrameTicker.Client {
+
+        int frames;
+        int remaining;
+        long lastFrameTime = -1;
+
+        CountingClient(int remaining) {
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            frames++;
+            lastFrameTime = frameTimeNanos;
+            return --remaining > 0;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ticker = new FrameTicker();
+    }
+
+    @Test
+    public void drivesAllClientsFromOneFrame() {
+        CountingClient[] clients = new CountingClient[10];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new CountingClient(i + 1);
+            ticker.add(clients[i]);
+        }
+        ticker.add(clients[0]);
+        assertEquals(10, ticker.size());
+
+        int frames = 0;
+        while (ticker.doFrame(frames * 16L)) {
+            frames++;
+        }
+        assertEquals(9, frames);
+        for (int i = 0; i < clients.length; i++) {
+            assertEquals(i + 1, clients[i].frames);
+        }
+        assertTrue(ticker.isEmpty());
+    }
+
+    @Test
+    public void removeDuringFrameSkipsRemainingClient() {
+        final CountingClient second = new CountingClient(5);
+        FrameTicker.Client first = new FrameTicker.Client() {
+            @Override
+            public boolean onFrame(long frameTimeNanos) {
+                ticker.remove(second);
+                return false;
+            }
+        };
+        ticker.add(first);
+        ticker.add(second);
+        assertFalse(ticker.doFrame(0));
+        assertEquals(0, second.frames);
+        assertTrue(ticker.isEmpty());
+    }
+
+    @Test
+    public void clientAddedDuringFrameStartsNextFrame() {
+        final CountingClient added = new CountingClient(1);
+        ticker.add(new FrameTicker.Client() {
+            @Override
+            public boolean onFrame(long frameTimeNanos) {
+                ticker.add(added);
+                return false;
+            }
+        });
+        assertTrue(ticker.doFrame(0));
+        assertEquals(0, added.frames);
+        assertFalse(ticker.doFrame(16));
+        assertEquals(16, added.lastFrameTime);
+    }
+
+    @Test
+    public void clientRestartedInItsOwnFrameKeepsTicking() {
+        final int[] frames = new int[1];
+        final FrameTicker.Client[] self = new FrameTicker.Client[1];
+        self[0] = new FrameTicker.Client() {
+            @Override
+            public boolean onFrame(long frameTimeNanos) {
+                frames[0]++;
+                if (frames[0] == 1) {
+                    //结束时立即开始下一段动画，与SlideAnimator在结束回调中重新开始的方式一致
+                    ticker.remove(self[0]);
+                    ticker.add(self[0]);
+                }
+                return false;
+            }
+        };
+        ticker.add(self[0]);
+        assertTrue(ticker.doFrame(0));
+        assertFalse(ticker.doFrame(16));
+        assertEquals(2, frames[0]);
+    }
+}
@@ -0,0 +1,161 @@
+package com.yy.besideslidinglayout.core;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 重放gestures目录下录制的手势，检查最终状态与expected.txt一致
+ */
+public class GestureReplayTest {
+
+    private static final String CORPUS = "/gestures/";
+
+    @Test
+    public void corpusSettlesOnExpectedState() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                open("expected.txt"), "UTF-8"));
+        int count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            GestureReplayer.Result result = new GestureReplayer().replay(load(fields[0]));
+            assertEquals(fields[0], Integer.parseInt(fields[1]), result.contentOffset);
+            assertEquals(fields[0], Boolean.parseBoolean(fields[2]), result.leftMenuVisible);
+            assertEquals(fields[0], Boolean.parseBoolean(fields[3]), result.rightMenuVisible);
+            //拖动的偏移量每帧最多更新一次
+            assertTrue(fields[0], result.offsetUpdates <= result.frameCount);
+            count++;
+        }
+        reader.close();
+        assertTrue(count > 0);
+    }
+
+    @Test
+    public void replayIsDeterministic() throws IOException {
+        GestureRecording recording = load("open_left_fling");
+        GestureReplayer.Result first = new GestureReplayer().replay(recording);
+        GestureReplayer.Result second = new GestureReplayer().replay(recording);
+        assertArrayEquals(first.frameOffsets, second.frameOffsets);
+        assertEquals(first.frameCount, second.frameCount);
+        assertEquals(first.getInvalidateCount(), second.getInvalidateCount());
+    }
+
+    @Test
+    public void flingFramesMoveTowardsMenu() throws IOException {
+        GestureReplayer.Result result = new GestureReplayer().replay(load("open_left_fling"));
+        int[] offsets = result.frameOffsets;
+        assertTrue(offsets.length > 0);
+        for (int i = 1; i < offsets.length; i++) {
+            assertTrue(Arrays.toString(offsets), offsets[i] >= offsets[i - 1]);
+        }
+        assertEquals(810, offsets[offsets.length - 1]);
+        assertEquals(2, result.menuVisibilityChanges);
+    }
+
+    @Test
+    public void verticalScrollNeverInvalidates() throws IOException {
+        GestureReplayer.Result result = new GestureReplayer().replay(load("vertical_scroll"));
+        assertEquals(0, result.getInvalidateCount());
+        assertEquals(0, result.frameOffsets.length);
+    }
+
+    @Test
+    public void writeAndReadRoundTrip() throws IOException {
+        GestureRecording recording = load("two_finger_handoff");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recording.writeTo(out);
+        GestureRecording copy = GestureRecording.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(recording.getEventCount(), copy.getEventCount());
+        assertEquals(recording.getWidth(), copy.getWidth());
+        assertEquals(recording.getSnapVelocity(), copy.getSnapVelocity(), 0f);
+        for (int event = 0; event < recording.getEventCount(); event++) {
+            assertEquals(recording.getTime(event), copy.getTime(event));
+            assertEquals(recording.getAction(event), copy.getAction(event));
+            assertEquals(recording.getPointerCount(event), copy.getPointerCount(event));
+            for (int i = 0; i < recording.getPointerCount(event); i++) {
+                assertEquals(recording.getPointerId(event, i), copy.getPointerId(event, i));
+                assertEquals(recording.getX(event, i), copy.getX(event, i), 0f);
+            }
+        }
+    }
+
+    @Test
+    public void corruptCountsAreRejected() throws IOException {
+        assertCorrupt(-1, 1, 0);
+        assertCorrupt(Integer.MAX_VALUE, 1, 0);
+        assertCorrupt(GestureRecording.MAX_FILE_EVENTS + 1, 1, 0);
+        assertCorrupt(1, 0, 0);
+        assertCorrupt(1, -1, 0);
+        assertCorrupt(1, GestureRecording.MAX_POINTERS + 1, 0);
+        assertCorrupt(1, 2, 2);
+        assertCorrupt(1, 2, -1);
+    }
+
+    /**
+     * 写出只有文件头和一个事件的录制结果，检查读取时抛出IOException
+     */
+    private static void assertCorrupt(int eventCount, int pointerCount, int actionIndex) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(GestureRecording.MAGIC);
+        out.writeByte(GestureRecording.VERSION);
+        out.writeInt(1080);
+        out.writeInt(810);
+        out.writeInt(810);
+        out.writeInt(24);
+        out.writeFloat(600f);
+        out.writeInt(0);
+        out.writeFloat(SlideCore.DEFAULT_LOCK_ANGLE);
+        out.writeInt(0);
+        out.writeInt(eventCount);
+        out.writeInt(0);
+        out.writeByte(GestureRecording.ACTION_DOWN);
+        out.writeByte(actionIndex);
+        out.writeByte(pointerCount);
+        for (int i = 0; i < Math.max(0, pointerCount); i++) {
+            out.writeByte(i);
+            out.writeFloat(100f);
+            out.writeFloat(100f);
+        }
+        out.flush();
+        try {
+            GestureRecording.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+            fail("events " + eventCount + ", pointers " + pointerCount + ", action index " + actionIndex);
+        } catch (IOException expected) {
+            //损坏的文件只能以IOException失败
+        }
+    }
+
+    private static GestureRecording load(String name) throws IOException {
+        InputStream in = open(name + ".bslg");
+        try {
+            return GestureRecording.readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static InputStream open(String name) {
+        InputStream in = GestureReplayTest.class.getResourceAsStream(CORPUS + name);
+        assertNotNull(name, in);
+        return in;
+    }
+}
@@ -0,0 +1,197 @@
+package com.yy.besideslidinglayout.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 用脚本化的手势序列驱动SlideCore和SlideSpring，以及由FrameTicker同时驱动多个滚动动画，
+ * 检查稳定状态下这些纯Java的计算不分配内存。BesideSlidingLayout的触摸事件处理和SlideAnimator的帧回调
+ * 依赖Android，由androidTest中的SlideAllocationTest在设备上检查。
+ * 统计依赖HotSpot的com.sun.management.ThreadMXBean，其他虚拟机上直接通过
+ */
+public class SlideCoreAllocationTest {
+
+    private static final int MENU_WIDTH = 810;
+    private static final long FRAME_NANOS = 16666667L;
+
+    /**
+     * 预热的轮数，让JIT完成编译并且让逃逸分析生效
+     */
+    private static final int WARMUP_ROUNDS = 20000;
+    private static final int MEASURED_ROUNDS = 2000;
+
+    /**
+     * FrameTicker同时驱动的动画数
+     */
+    private static final int TICKER_CLIENTS = 10;
+
+    private SlideCore core;
+    private SlideSpring spring;
+    private long frameTime;
+
+    /**
+     * 与SlideAnimator驱动SlideCore的方式一致的滚动动画，到达终点后从FrameTicker中移除，
+     * 下一轮重新注册并反向滚动
+     */
+    private static final class SlideClient implements FrameTicker.Client {
+
+        private final SlideCore mCore = new SlideCore();
+        private final SlideSpring mSpring = new SlideSpring();
+
+        SlideClient() {
+            mCore.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+        }
+
+        void start() {
+            mCore.beginSlide(mCore.getContentOffset() == 0 ? SlideCore.SHOW_LEFT_MENU : SlideCore.HIDE_LEFT_MENU);
+            mSpring.start(mCore.getContentOffset(), mCore.getContentOffset() == 0 ? MENU_WIDTH : 0, 0f);
+        }
+
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            if (mSpring.computeOffset(frameTimeNanos)) {
+                mCore.setContentOffset(mSpring.getValue());
+                return true;
+            }
+            mCore.finishSlide(mSpring.getValue());
+            return false;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        core = new SlideCore();
+        core.setTouchSlop(24);
+        core.setSnapVelocity(525f);
+        core.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+        spring = new SlideSpring();
+    }
+
+    @Test
+    public void gesturesDoNotAllocate() {
+        long allocated = measureAllocatedBytes(new Runnable() {
+            private int round;
+
+            @Override
+            public void run() {
+                runGestures(round++);
+            }
+        });
+        assertEquals("bytes allocated by " + MEASURED_ROUNDS + " rounds of gestures", 0, allocated);
+    }
+
+    @Test
+    public void frameTickerDispatchDoesNotAllocate() {
+        final FrameTicker ticker = new FrameTicker();
+        final SlideClient[] clients = new SlideClient[TICKER_CLIENTS];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new SlideClient();
+        }
+        long allocated = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                for (SlideClient client : clients) {
+                    client.start();
+                    ticker.add(client);
+                }
+                //中途移除一个动画，其余动画结束时覆盖遍历中置空再压缩的路径
+                ticker.doFrame(frameTime);
+                ticker.remove(clients[0]);
+                while (ticker.doFrame(frameTime)) {
+                    frameTime += FRAME_NANOS;
+                }
+                clients[0].mCore.finishSlide(clients[0].mSpring.getTarget());
+            }
+        });
+        assertEquals("bytes allocated by " + MEASURED_ROUNDS + " rounds of ticker frames", 0, allocated);
+    }
+
+    /**
+     * 预热后统计MEASURED_ROUNDS轮round分配的字节数
+     * @param round 一轮操作
+     * @return 分配的字节数，虚拟机不支持统计时返回0
+     */
+    private static long measureAllocatedBytes(Runnable round) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return 0;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+        //两次连续读取之间的差值是统计本身的开销
+        long overhead = -bean.getThreadAllocatedBytes(threadId) + bean.getThreadAllocatedBytes(threadId);
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            round.run();
+        }
+        return bean.getThreadAllocatedBytes(threadId) - before - overhead;
+    }
+
+    /**
+     * 一轮手势：慢速拖出左侧菜单并回弹、快速滑出右侧菜单、点击主界面关闭菜单、两指交替拖动、纵向滚动
+     */
+    private void runGestures(int round) {
+        float jitter = round % 3;
+
+        core.onDown(100f, 500f);
+        for (int i = 1; i <= 60; i++) {
+            core.onMove(100f + i * 10f, 500f + jitter);
+        }
+        settle(core.getSettleTarget(120f), 120f);
+
+        core.onDown(1000f, 500f);
+        for (int i = 1; i <= 8; i++) {
+            core.onMove(1000f - i * 40f, 500f);
+        }
+        settle(core.getSettleTarget(-4000f), -4000f);
+
+        if (core.isTouchOnOpenedContent(100f, 1080)) {
+            core.onDown(100f, 500f);
+            core.onMove(102f, 501f);
+            if (core.isTap(102f)) {
+                core.beginSlide(core.isLeftMenuVisible() ? SlideCore.HIDE_LEFT_MENU : SlideCore.HIDE_RIGHT_MENU);
+                settle(0, 0f);
+            }
+        }
+
+        core.onDown(100f, 500f);
+        for (int i = 1; i <= 20; i++) {
+            core.onMove(100f + i * 10f, 500f);
+        }
+        core.rebase(600f, 700f);
+        for (int i = 1; i <= 20; i++) {
+            core.onMove(600f + i * 10f, 700f);
+        }
+        settle(core.getSettleTarget(0f), 0f);
+
+        core.onDown(500f, 300f);
+        for (int i = 1; i <= 30; i++) {
+            core.onMove(500f + jitter, 300f + i * 20f);
+        }
+        core.isTap(500f);
+    }
+
+    private void settle(int target, float velocity) {
+        if (!spring.start(core.getContentOffset(), target, velocity)) {
+            core.finishSlide(target);
+            return;
+        }
+        while (spring.computeOffset(frameTime)) {
+            core.setContentOffset(spring.getValue());
+            frameTime += FRAME_NANOS;
+        }
+        core.finishSlide(spring.getValue());
+    }
+}
@@ -0,0 +1,301 @@
+package com.yy.besideslidinglayout.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlideCoreTest {
+
+    private static final int MENU_WIDTH = 300;
+    private static final int TOUCH_SLOP = 10;
+
+    private SlideCore core;
+
+    @Before
+    public void setUp() {
+        core = new SlideCore();
+        core.setTouchSlop(TOUCH_SLOP);
+        core.setSnapVelocity(500f);
+        core.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+    }
+
+    @Test
+    public void moveWithinSlopDoesNotSlide() {
+        core.onDown(100f, 100f);
+        assertFalse(core.onMove(105f, 100f));
+        assertFalse(core.isSliding());
+        assertEquals(SlideCore.DO_NOTHING, core.getSlideState());
+        assertEquals(0, core.getContentOffset());
+    }
+
+    @Test
+    public void verticalMoveDoesNotSlide() {
+        core.onDown(100f, 100f);
+        assertFalse(core.onMove(120f, 150f));
+        assertFalse(core.isSliding());
+    }
+
+    @Test
+    public void dragRightShowsLeftMenuAndClamps() {
+        core.onDown(100f, 100f);
+        assertTrue(core.onMove(120f, 100f));
+        assertEquals(SlideCore.SHOW_LEFT_MENU, core.getSlideState());
+        assertEquals(20, core.getContentOffset());
+        assertFalse(core.onMove(900f, 100f));
+        assertEquals(MENU_WIDTH, core.getContentOffset());
+    }
+
+    @Test
+    public void dragLeftShowsRightMenuAndClamps() {
+        core.onDown(900f, 100f);
+        assertTrue(core.onMove(880f, 100f));
+        assertEquals(SlideCore.SHOW_RIGHT_MENU, core.getSlideState());
+        assertEquals(-20, core.getContentOffset());
+        core.onMove(0f, 100f);
+        assertEquals(-MENU_WIDTH, core.getContentOffset());
+    }
+
+    @Test
+    public void slowReleaseSnapsByHalfWidth() {
+        core.onDown(100f, 100f);
+        core.onMove(100f + MENU_WIDTH / 2 + 1, 100f);
+        assertEquals(MENU_WIDTH, core.getSettleTarget(0f));
+        core.onMove(100f + MENU_WIDTH / 2 - 1, 100f);
+        assertEquals(0, core.getSettleTarget(0f));
+    }
+
+    @Test
+    public void fastReleaseSnapsByVelocityDirection() {
+        core.onDown(100f, 100f);
+        core.onMove(130f, 100f);
+        assertEquals(MENU_WIDTH, core.getSettleTarget(1000f));
+        core.onMove(100f + MENU_WIDTH - 10, 100f);
+        assertEquals(0, core.getSettleTarget(-1000f));
+    }
+
+    @Test
+    public void halfWayDragClosesOpenedLeftMenu() {
+        core.finishSlide(MENU_WIDTH);
+        assertTrue(core.isLeftMenuVisible());
+        core.onDown(500f, 100f);
+        assertTrue(core.onMove(500f - MENU_WIDTH / 2 - 1, 100f));
+        assertEquals(SlideCore.HIDE_LEFT_MENU, core.getSlideState());
+        assertEquals(0, core.getSettleTarget(0f));
+        core.finishSlide(0);
+        assertFalse(core.isLeftMenuVisible());
+        assertFalse(core.isSliding());
+    }
+
+    @Test
+    public void rebaseKeepsOffsetContinuous() {
+        core.onDown(100f, 100f);
+        core.onMove(150f, 100f);
+        core.rebase(400f, 120f);
+        assertEquals(50, core.getContentOffset());
+        core.onMove(410f, 120f);
+        assertEquals(60, core.getContentOffset());
+    }
+
+    @Test
+    public void catchSlideContinuesFromCurrentOffset() {
+        core.beginSlide(SlideCore.SHOW_LEFT_MENU);
+        core.setContentOffset(120);
+        core.catchSlide(500f, 100f);
+        core.onMove(510f, 100f);
+        assertEquals(130, core.getContentOffset());
+
+        core.finishSlide(MENU_WIDTH);
+        core.beginSlide(SlideCore.HIDE_LEFT_MENU);
+        core.setContentOffset(200);
+        core.catchSlide(500f, 100f);
+        core.onMove(490f, 100f);
+        assertEquals(190, core.getContentOffset());
+        assertTrue(core.isSliding());
+    }
+
+    @Test
+    public void steepMoveLocksGestureAsVertical() {
+        core.onDown(100f, 100f);
+        assertFalse(core.onMove(115f, 112f));
+        assertTrue(core.isGestureIgnored());
+        //锁定为纵向之后再横向移动也不会滑动
+        assertFalse(core.onMove(200f, 112f));
+        assertFalse(core.isSliding());
+        assertEquals(0, core.getContentOffset());
+
+        core.onDown(100f, 100f);
+        assertFalse(core.isGestureIgnored());
+        assertTrue(core.onMove(115f, 105f));
+        assertEquals(SlideCore.SHOW_LEFT_MENU, core.getSlideState());
+    }
+
+    @Test
+    public void edgeSizeLimitsWhereMenusOpen() {
+        core.setWidth(1000);
+        core.setEdgeSize(40);
+
+        core.onDown(500f, 100f);
+        assertTrue(core.isGestureIgnored());
+        assertFalse(core.onMove(600f, 100f));
+
+        core.onDown(20f, 100f);
+        assertFalse(core.onMove(5f, 100f));
+        assertTrue(core.isGestureIgnored());
+
+        core.onDown(980f, 100f);
+        assertTrue(core.onMove(900f, 100f));
+        assertEquals(SlideCore.SHOW_RIGHT_MENU, core.getSlideState());
+        core.finishSlide(-MENU_WIDTH);
+
+        //菜单显示时关闭菜单的手势不受边缘区域的限制
+        core.onDown(500f, 100f);
+        assertFalse(core.isGestureIgnored());
+        assertTrue(core.onMove(600f, 100f));
+        assertEquals(SlideCore.HIDE_RIGHT_MENU, core.getSlideState());
+    }
+
+    @Test
+    public void menuWidthChangeKeepsOffsetFraction() {
+        core.finishSlide(MENU_WIDTH);
+        core.setMenuWidths(MENU_WIDTH * 2, MENU_WIDTH);
+        assertEquals(MENU_WIDTH * 2, core.getContentOffset());
+        assertEquals(1f, core.getOffsetFraction(), 0f);
+
+        core.finishSlide(-MENU_WIDTH / 2);
+        core.setMenuWidths(MENU_WIDTH * 2, MENU_WIDTH * 3);
+        assertEquals(-MENU_WIDTH * 3 / 2, core.getContentOffset());
+        assertEquals(-0.5f, core.getOffsetFraction(), 0f);
+
+        core.finishSlide(0);
+        core.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+        assertEquals(0, core.getContentOffset());
+    }
+
+    @Test
+    public void scrollByStaysWithinChosenMenu() {
+        core.setEdgeSize(20);
+        core.setWidth(1000);
+        //嵌套滚动不受边缘区域限制
+        assertEquals(100, core.scrollBy(100));
+        assertTrue(core.isSliding());
+        assertEquals(SlideCore.SHOW_LEFT_MENU, core.getSlideState());
+        assertEquals(MENU_WIDTH - 100, core.scrollBy(MENU_WIDTH));
+        assertEquals(0, core.scrollBy(50));
+        //反向时只关闭到0，不会越过去露出右侧菜单
+        assertEquals(-MENU_WIDTH, core.scrollBy(-MENU_WIDTH * 2));
+        assertEquals(0, core.getContentOffset());
+        core.finishSlide(0);
+
+        assertEquals(0, core.scrollBy(0));
+        assertEquals(-50, core.scrollBy(-50));
+        assertEquals(SlideCore.SHOW_RIGHT_MENU, core.getSlideState());
+        core.finishSlide(-MENU_WIDTH);
+
+        //菜单完全露出时继续向同一方向移动不进入滑动状态
+        assertEquals(0, core.scrollBy(-10));
+        assertFalse(core.isSliding());
+        assertEquals(40, core.scrollBy(40));
+        assertEquals(SlideCore.HIDE_RIGHT_MENU, core.getSlideState());
+    }
+
+    @Test
+    public void presentMenuWithoutWidthCanStartSlide() {
+        //还没有加载的菜单宽度为0
+        core.setMenuWidths(0, 0);
+        core.setEdgeSize(20);
+        core.setWidth(1000);
+        core.onDown(10f, 100f);
+        assertTrue(core.isGestureIgnored());
+
+        core.setMenusPresent(true, false);
+        core.onDown(10f, 100f);
+        assertFalse(core.isGestureIgnored());
+        assertTrue(core.onMove(60f, 100f));
+        assertEquals(SlideCore.SHOW_LEFT_MENU, core.getSlideState());
+        assertEquals(0, core.getContentOffset());
+        //菜单加载后按新的宽度重新计算同一次移动
+        core.setMenuWidths(MENU_WIDTH, 0);
+        core.onMove(60f, 100f);
+        assertEquals(50, core.getContentOffset());
+        core.finishSlide(0);
+
+        core.setMenuWidths(0, 0);
+        assertEquals(0, core.scrollBy(-50));
+        assertFalse(core.isSliding());
+        assertEquals(0, core.scrollBy(50));
+        assertTrue(core.isSliding());
+        core.setMenuWidths(MENU_WIDTH, 0);
+        assertEquals(50, core.scrollBy(50));
+    }
+
+    @Test
+    public void touchOnOpenedContent() {
+        assertFalse(core.isTouchOnOpenedContent(500f, 1000));
+        core.finishSlide(-MENU_WIDTH);
+        assertTrue(core.isTouchOnOpenedContent(100f, 1000));
+        assertFalse(core.isTouchOnOpenedContent(800f, 1000));
+    }
+
+    @Test
+    public void springSettlesOnTarget() {
+        SlideSpring spring = new SlideSpring();
+        assertTrue(spring.start(0, MENU_WIDTH, 2000f));
+        long frameTime = 0;
+        int frames = 0;
+        int last = 0;
+        while (spring.computeOffset(frameTime)) {
+            assertTrue(spring.getValue() >= last);
+            last = spring.getValue();
+            frameTime += 16666667L;
+            frames++;
+        }
+        assertEquals(MENU_WIDTH, spring.getValue());
+        assertTrue(frames < 60);
+        assertFalse(spring.start(MENU_WIDTH, MENU_WIDTH, 0f));
+    }
+
+    @Test
+    public void retargetOntoCurrentPositionStopsThere() {
+        SlideSpring spring = new SlideSpring();
+        spring.start(0, MENU_WIDTH, 0f);
+        long frameTime = 0;
+        while (spring.computeOffset(frameTime) && spring.getValue() < MENU_WIDTH / 2) {
+            frameTime += 16666667L;
+        }
+        int here = spring.getValue();
+        float velocity = spring.getVelocity();
+        assertTrue(velocity > 0);
+
+        //停在当前位置，带着速度也不会越过终点再回来
+        assertTrue(spring.start(here, here, velocity));
+        while (spring.computeOffset(frameTime)) {
+            assertTrue(spring.getValue() <= here);
+            frameTime += 16666667L;
+        }
+        assertEquals(here, spring.getValue());
+
+        //终点就是菜单的边界时，主界面不会被截在边界上等待弹簧返回
+        core.finishSlide(MENU_WIDTH);
+        core.beginSlide(SlideCore.SHOW_LEFT_MENU);
+        assertTrue(spring.start(MENU_WIDTH, MENU_WIDTH, 1500f));
+        int frames = 0;
+        while (spring.computeOffset(frameTime)) {
+            core.setContentOffset(spring.getValue());
+            assertEquals(MENU_WIDTH, spring.getValue());
+            frameTime += 16666667L;
+            frames++;
+        }
+        assertTrue("frames " + frames, frames <= 1);
+        assertEquals(MENU_WIDTH, spring.getValue());
+
+        assertTrue(spring.start(-MENU_WIDTH, -MENU_WIDTH, -1500f));
+        while (spring.computeOffset(frameTime)) {
+            assertTrue(spring.getValue() >= -MENU_WIDTH);
+            frameTime += 16666667L;
+        }
+        assertEquals(-MENU_WIDTH, spring.getValue());
+    }
+}
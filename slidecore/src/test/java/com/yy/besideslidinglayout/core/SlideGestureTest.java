@@ -0,0 +1,227 @@
+package com.yy.besideslidinglayout.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlideGestureTest {
+
+    private static final int WIDTH = 1000;
+    private static final int MENU_WIDTH = 300;
+    private static final int TOUCH_SLOP = 10;
+
+    private SlideCore core;
+    private SlideGesture gesture;
+    private RecordingCallback callback;
+    private TestEvent event;
+
+    @Before
+    public void setUp() {
+        core = new SlideCore();
+        core.setTouchSlop(TOUCH_SLOP);
+        core.setSnapVelocity(500f);
+        core.setWidth(WIDTH);
+        core.setMenuWidths(MENU_WIDTH, MENU_WIDTH);
+        callback = new RecordingCallback();
+        gesture = new SlideGesture(core, callback);
+        event = new TestEvent();
+    }
+
+    @Test
+    public void dragStartsSlideOnceAndReportsEveryMove() {
+        gesture.onDown(event.set(0, 0, 100f));
+        gesture.onMove(event.set(0, 0, 105f));
+        assertEquals(0, callback.drags);
+        gesture.onMove(event.set(0, 0, 150f));
+        gesture.onMove(event.set(0, 0, 200f));
+        assertEquals(1, callback.slideStarts);
+        assertEquals(SlideCore.SHOW_LEFT_MENU, callback.startedState);
+        assertEquals(2, callback.drags);
+        assertEquals(100, core.getContentOffset());
+
+        callback.velocity = 800f;
+        gesture.onUp(event.set(0, 0, 200f));
+        assertEquals(1, callback.releases);
+        assertEquals(800f, callback.releasedVelocity, 0f);
+    }
+
+    @Test
+    public void secondPointerTakesOverWithoutJump() {
+        gesture.onDown(event.set(0, 0, 100f));
+        gesture.onMove(event.set(0, 0, 200f));
+        assertEquals(100, core.getContentOffset());
+
+        //第二根手指按下后改为跟随它，第一根手指的移动不再起作用
+        gesture.onPointerDown(event.set(1, 0, 200f, 1, 500f));
+        assertEquals(1, gesture.getActivePointerId());
+        gesture.onMove(event.set(0, 0, 260f, 1, 520f));
+        assertEquals(120, core.getContentOffset());
+
+        //跟随的手指抬起后回到剩下的手指
+        gesture.onPointerUp(event.set(1, 0, 260f, 1, 520f));
+        assertEquals(0, gesture.getActivePointerId());
+        gesture.onMove(event.set(0, 0, 280f));
+        assertEquals(140, core.getContentOffset());
+    }
+
+    @Test
+    public void downWhileSettlingCatchesContent() {
+        gesture.onDown(event.set(0, 0, 100f));
+        gesture.onMove(event.set(0, 0, 250f));
+        gesture.onUp(event.set(0, 0, 250f));
+        assertTrue(core.isSliding());
+
+        gesture.onDown(event.set(0, 0, 400f));
+        assertEquals(1, callback.catches);
+        gesture.onMove(event.set(0, 0, 420f));
+        assertEquals(170, core.getContentOffset());
+    }
+
+    @Test
+    public void tapOnOpenedContentClosesMenu() {
+        core.finishSlide(-MENU_WIDTH);
+        gesture.onDown(event.set(0, 0, 100f));
+        gesture.onUp(event.set(0, 0, 103f));
+        assertEquals(0, callback.releases);
+        assertEquals(1, callback.taps);
+        assertFalse(callback.tappedLeftMenu);
+
+        //点在露出的菜单上不关闭
+        gesture.onDown(event.set(0, 0, WIDTH - 50f));
+        gesture.onUp(event.set(0, 0, WIDTH - 50f));
+        assertEquals(1, callback.taps);
+    }
+
+    @Test
+    public void cancelReleasesWithoutVelocity() {
+        gesture.onDown(event.set(0, 0, 900f));
+        gesture.onMove(event.set(0, 0, 700f));
+        callback.velocity = -2000f;
+        gesture.onCancel();
+        assertEquals(1, callback.releases);
+        assertEquals(0f, callback.releasedVelocity, 0f);
+    }
+
+    /**
+     * 最多两根手指、纵坐标都为0的事件，每次调用set复用同一个对象
+     */
+    private static class TestEvent implements SlideGesture.Event {
+
+        private final int[] ids = new int[2];
+        private final float[] xs = new float[2];
+        private int pointerCount;
+        private int actionIndex;
+
+        TestEvent set(int actionIndex, int id, float x) {
+            this.actionIndex = actionIndex;
+            pointerCount = 1;
+            ids[0] = id;
+            xs[0] = x;
+            return this;
+        }
+
+        TestEvent set(int actionIndex, int id0, float x0, int id1, float x1) {
+            set(actionIndex, id0, x0);
+            pointerCount = 2;
+            ids[1] = id1;
+            xs[1] = x1;
+            return this;
+        }
+
+        @Override
+        public int getPointerCount() {
+            return pointerCount;
+        }
+
+        @Override
+        public int getActionIndex() {
+            return actionIndex;
+        }
+
+        @Override
+        public int getPointerId(int index) {
+            return ids[index];
+        }
+
+        @Override
+        public int findPointerIndex(int pointerId) {
+            for (int i = 0; i < pointerCount; i++) {
+                if (ids[i] == pointerId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public float getX(int index) {
+            return xs[index];
+        }
+
+        @Override
+        public float getY(int index) {
+            return 0f;
+        }
+
+        @Override
+        public long getEventTime() {
+            return 0;
+        }
+    }
+
+    /**
+     * 记录每个回调的次数和参数
+     */
+    private static class RecordingCallback implements SlideGesture.Callback {
+
+        int catches;
+        int slideStarts;
+        int startedState;
+        int drags;
+        int releases;
+        float releasedVelocity;
+        int taps;
+        boolean tappedLeftMenu;
+        float velocity;
+
+        @Override
+        public void onGestureDown(float x) {
+        }
+
+        @Override
+        public void onSettleCaught() {
+            catches++;
+        }
+
+        @Override
+        public void onSlideStarted(int state, long eventTime) {
+            slideStarts++;
+            startedState = state;
+        }
+
+        @Override
+        public void onDragged(long eventTime) {
+            drags++;
+        }
+
+        @Override
+        public float computeReleaseVelocity(long eventTime) {
+            return velocity;
+        }
+
+        @Override
+        public void onRelease(float velocity) {
+            releases++;
+            releasedVelocity = velocity;
+        }
+
+        @Override
+        public void onOpenedContentTapped(boolean leftMenuVisible) {
+            taps++;
+            tappedLeftMenu = leftMenuVisible;
+        }
+    }
+}